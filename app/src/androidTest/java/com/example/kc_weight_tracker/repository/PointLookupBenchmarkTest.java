@@ -0,0 +1,158 @@
+package com.example.kc_weight_tracker.repository;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Debug;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.kc_weight_tracker.data.DatabaseContract;
+import com.example.kc_weight_tracker.data.DatabaseHelper;
+import com.example.kc_weight_tracker.data.StatementCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the cached compiled-statement point lookups with the db.query and
+ * Cursor path they replaced, on a device. Prints time and allocation per call.
+ * The repositories serve most of these from UserDataCache, so the timed path
+ * calls the StatementCache directly with the repositories' own SQL, which is
+ * what every cache miss runs.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PointLookupBenchmarkTest {
+    private static final int ENTRIES = 365;
+    private static final int CALLS = 5_000;
+
+    private Context ctx;
+    private SQLiteDatabase db;
+    private WeightsRepository weights;
+    private UserRepository users;
+    private long userId;
+    private long today;
+
+    private static Object sink;
+
+    @Before
+    public void setUp() {
+        ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = DatabaseHelper.getInstance(ctx).getWritableDatabase();
+        weights = new WeightsRepository(ctx);
+        users = new UserRepository(ctx);
+        userId = users.createUser("bench_" + System.nanoTime(), "benchmark");
+        assertTrue(userId > 0);
+
+        today = LocalDate.now().toEpochDay();
+        for (int i = 0; i < ENTRIES; i++) {
+            weights.addWeight(userId, today - i, 180f + (i % 40) / 10f);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        db.delete(DatabaseContract.Users.TABLE, DatabaseContract.Users.COL_ID + "=?",
+                new String[] { String.valueOf(userId) });
+    }
+
+    @Test
+    public void cachedLookups_beatCursorLookups() {
+        // Both paths must agree before timing them
+        assertEquals(legacyLatest(), weights.getLatestWeight(userId));
+        assertEquals(legacyFirst(), weights.getFirstWeight(userId));
+        assertEquals(legacyHeight(), users.getUserHeight(userId));
+        assertEquals(legacyHasEntry(today), weights.hasWeightEntry(userId, today));
+        assertEquals(legacyHasEntry(today + 1), weights.hasWeightEntry(userId, today + 1));
+
+        StatementCache statements = DatabaseHelper.getInstance(ctx).getStatementCache();
+        Runnable cached = () -> {
+            sink = statements.queryForLong(WeightsRepository.SQL_HAS_ENTRY, userId, today) != 0;
+            sink = WeightsRepository.toWeightLb(statements.queryForLong(WeightsRepository.SQL_LATEST_LB, userId));
+            sink = WeightsRepository.toWeightLb(statements.queryForLong(WeightsRepository.SQL_FIRST_LB, userId));
+            sink = UserRepository.toHeightInches(statements.queryForLong(UserRepository.SQL_HEIGHT, userId));
+        };
+        Runnable legacy = () -> {
+            sink = legacyHasEntry(today);
+            sink = legacyLatest();
+            sink = legacyFirst();
+            sink = legacyHeight();
+        };
+
+        // Warm up both paths, including SQLite's per-connection statement cache
+        measure(cached);
+        measure(legacy);
+
+        long[] legacyCost = measure(legacy);
+        long[] cachedCost = measure(cached);
+        System.out.printf("point lookups per call: cursor %d ns %d B, cached %d ns %d B%n",
+                legacyCost[0], legacyCost[1], cachedCost[0], cachedCost[1]);
+
+        assertTrue("cached lookups should be faster", cachedCost[0] < legacyCost[0]);
+    }
+
+    /** Average nanoseconds and bytes allocated per lookup over the calls */
+    @SuppressWarnings("deprecation")
+    private static long[] measure(Runnable fourLookups) {
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            fourLookups.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        Debug.stopAllocCounting();
+        long lookups = CALLS * 4L;
+        return new long[] { elapsed / lookups, Debug.getThreadAllocSize() / lookups };
+    }
+
+    /** What hasWeightEntry did before: a query and Cursor per call */
+    private Boolean legacyHasEntry(long epochDay) {
+        try (Cursor c = db.query(
+                DatabaseContract.Weights.TABLE,
+                new String[] { DatabaseContract.Weights.COL_ID },
+                DatabaseContract.Weights.COL_USER_ID + "=? AND " + DatabaseContract.Weights.COL_DATE + "=?",
+                new String[] { String.valueOf(userId), String.valueOf(epochDay) },
+                null, null, null,
+                "1")) {
+            return c.moveToFirst();
+        }
+    }
+
+    private Float legacyLatest() {
+        return legacySummary(DatabaseContract.WeightSummary.COL_LATEST_LB);
+    }
+
+    private Float legacyFirst() {
+        return legacySummary(DatabaseContract.WeightSummary.COL_FIRST_LB);
+    }
+
+    private Float legacySummary(String column) {
+        try (Cursor c = db.query(
+                DatabaseContract.WeightSummary.TABLE,
+                new String[] { column },
+                DatabaseContract.WeightSummary.COL_USER_ID + "=?",
+                new String[] { String.valueOf(userId) },
+                null, null, null)) {
+            return c.moveToFirst() ? c.getFloat(0) : null;
+        }
+    }
+
+    private Double legacyHeight() {
+        try (Cursor c = db.query(
+                DatabaseContract.Users.TABLE,
+                new String[] { DatabaseContract.Users.COL_HEIGHT_INCHES },
+                DatabaseContract.Users.COL_ID + "=?",
+                new String[] { String.valueOf(userId) },
+                null, null, null)) {
+            return c.moveToFirst() && !c.isNull(0) ? c.getDouble(0) : null;
+        }
+    }
+}
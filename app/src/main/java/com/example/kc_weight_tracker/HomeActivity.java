@@ -8,8 +8,11 @@ import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.kc_weight_tracker.data.DataVersionTracker;
+import com.example.kc_weight_tracker.data.DateCodec;
+import com.example.kc_weight_tracker.data.GoalProjection;
+import com.example.kc_weight_tracker.repository.DashboardRepository;
 import com.example.kc_weight_tracker.repository.WeightGoalRepository;
-import com.example.kc_weight_tracker.repository.WeightsRepository;
 import com.example.kc_weight_tracker.utility.NavUtil;
 import com.example.kc_weight_tracker.utility.SessionManager;
 
@@ -33,6 +36,13 @@ public class HomeActivity extends AppCompatActivity {
     private CircularProgressView circularProgress;
     private FloatingActionButton fabLogWeight;
 
+    private DashboardRepository dashboardRepo;
+
+    /// what the cards were last loaded for, so onResume can skip an unchanged reload
+    private long loadedUserId = -1;
+    private long loadedVersion = -1;
+    private LocalDate loadedDay;
+
     /**
      * Called when the activity is created
      * 
@@ -49,9 +59,11 @@ public class HomeActivity extends AppCompatActivity {
             getSupportActionBar().setTitle("Weight Tracker");
         }
 
+        dashboardRepo = new DashboardRepository(this);
+
         initializeViews();
         setupClickListeners();
-        updateUI();
+        // updateUI() runs from onResume, which always follows onCreate
     }
 
     /**
@@ -95,14 +107,32 @@ public class HomeActivity extends AppCompatActivity {
     }
 
     /**
-     * Update the UI after a change
+     * Update the UI after a change.
+     * The cards are only reloaded if the user's weights or goal were written
+     * since the last load, or the day changed (the streak depends on today).
      */
     private void updateUI() {
         // Update the welcome message, date, goal progress, and quick stats
         updateWelcomeMessage(); // Update the welcome message
         updateDate(); // Update the date
-        updateGoalProgress(); // Update the goal progress
-        updateQuickStats(); // Update the quick stats
+
+        long userId = SessionManager.userId(this);
+        LocalDate today = LocalDate.now();
+        // Read before loading, so a write that lands during the load triggers another
+        long version = DataVersionTracker.version(userId,
+                DataVersionTracker.Table.WEIGHTS, DataVersionTracker.Table.GOALS);
+        if (userId == loadedUserId && version == loadedVersion && today.equals(loadedDay)) {
+            return; // Nothing the cards show has changed
+        }
+
+        // One background read for everything the cards below need
+        dashboardRepo.getSnapshotAsync(this, userId, today, snapshot -> {
+            updateGoalProgress(snapshot); // Update the goal progress
+            updateQuickStats(snapshot); // Update the quick stats
+            loadedUserId = userId;
+            loadedVersion = version;
+            loadedDay = today;
+        });
     }
 
     // Update the welcome message
@@ -130,13 +160,8 @@ public class HomeActivity extends AppCompatActivity {
     }
 
     // Update the goal progress
-    private void updateGoalProgress() {
-        long uid = SessionManager.userId(this);
-        WeightGoalRepository goalRepo = new WeightGoalRepository(this);
-        WeightsRepository weightsRepo = new WeightsRepository(this);
-
-        // Get the current goal
-        WeightGoalRepository.WeightGoalDTO goal = goalRepo.getCurrentGoal(uid);
+    private void updateGoalProgress(DashboardRepository.DashboardSnapshot snapshot) {
+        WeightGoalRepository.WeightGoalDTO goal = snapshot.goal;
 
         if (goal == null) {
             tvGoalTitle.setText("Weight Goal");
@@ -148,128 +173,90 @@ public class HomeActivity extends AppCompatActivity {
             tvGoalTitle.setText("Weight Goal");
             tvGoalWeight.setText(String.format("%.1f lb", goal.targetLb));
 
-            // Format target date nicely
-            try {
-                LocalDate targetDate = LocalDate.parse(goal.targetDateIso);
-                String month = targetDate.getMonth().getDisplayName(TextStyle.SHORT, Locale.getDefault());
-                int day = targetDate.getDayOfMonth();
-                int year = targetDate.getYear();
-                tvGoalSubtitle.setText(String.format("Target: %s %d, %d", month, day, year));
-            } catch (Exception e) {
-                tvGoalSubtitle.setText("Target: " + goal.targetDateIso);
+            // Format target date nicely, with the projected date under it when there is one
+            StringBuilder subtitle = new StringBuilder("Target: ").append(formatDate(goal.targetEpochDay));
+            if (snapshot.hasProgress() && snapshot.isProgressFromTrend()) {
+                // The ring follows the trend, which can differ from the current weight beside it
+                subtitle.append(String.format("\nProgress by trend weight: %.1f lb", snapshot.getProgressWeightLb()));
             }
+            String pace = formatProjection(snapshot.projection, goal.targetEpochDay);
+            if (pace != null) {
+                subtitle.append("\n").append(pace);
+            }
+            tvGoalSubtitle.setText(subtitle);
 
-            /*
-             * Basic Goal Progress Calculation:
-             * Progress = (Total Difference - Current Difference) / Total Difference × 100
-             * 
-             * Where:
-             * - Total Difference = |Starting Weight - Goal Weight|
-             * - Current Difference = |Current Weight - Goal Weight|
-             * 
-             * Examples:
-             * Weight Loss: Start 200lbs, Goal 180lbs, Current 190lbs
-             * Total Diff = |200-180| = 20, Current Diff = |190-180| = 10
-             * Progress = (20-10)/20 × 100 = 50%
-             * 
-             * Weight Gain: Start 150lbs, Goal 170lbs, Current 165lbs
-             * Total Diff = |150-170| = 20, Current Diff = |165-170| = 5
-             * Progress = (20-5)/20 × 100 = 75%
-             */
-            Float currentWeight = weightsRepo.getLatestWeight(uid);
-            if (currentWeight != null) {
-                // Get the first weight entry as starting weight
-                Float startingWeight = weightsRepo.getFirstWeight(uid);
-
-                if (startingWeight != null) {
-                    // Calculate difference between current weight and goal
-                    float weightDifference = Math.abs(currentWeight - goal.targetLb);
-                    float totalDifference = Math.abs(startingWeight - goal.targetLb);
-
-                    if (totalDifference > 0) {
-                        // Calculate progress based on how close they are to the goal
-                        float progress = Math.max(0,
-                                Math.min(100, ((totalDifference - weightDifference) / totalDifference) * 100));
-
-                        circularProgress.setProgress(progress);
-
-                        if (weightDifference <= 1.0f) {
-                            // Very close to goal (within 1 lb)
-                            circularProgress.setCenterText("Almost There!");
-                        } else if (weightDifference <= 5.0f) {
-                            // Close to goal (within 5 lbs)
-                            circularProgress.setCenterText(String.format("%.1f lbs to go", weightDifference));
-                        } else {
-                            // Show percentage progress
-                            circularProgress.setCenterText(String.format("%.0f%%", progress));
-                        }
-                    } else {
-                        // Goal already reached
-                        circularProgress.setProgress(100);
-                        circularProgress.setCenterText("Goal Reached!");
-                    }
+            // Progress math lives on the snapshot, see DashboardSnapshot.getProgressPercent
+            if (!snapshot.hasProgress()) {
+                // No starting or current weight available
+                circularProgress.setProgress(0);
+                circularProgress.setCenterText("0%");
+            } else if (snapshot.getTotalDifferenceLb() > 0) {
+                float progress = snapshot.getProgressPercent();
+                float weightDifference = snapshot.getRemainingLb();
+
+                circularProgress.setProgress(progress);
+
+                if (weightDifference <= 1.0f) {
+                    // Very close to goal (within 1 lb)
+                    circularProgress.setCenterText("Almost There!");
+                } else if (weightDifference <= 5.0f) {
+                    // Close to goal (within 5 lbs)
+                    circularProgress.setCenterText(String.format("%.1f lbs to go", weightDifference));
                 } else {
-                    // No starting weight available
-                    circularProgress.setProgress(0);
-                    circularProgress.setCenterText("0%");
+                    // Show percentage progress
+                    circularProgress.setCenterText(String.format("%.0f%%", progress));
                 }
             } else {
-                circularProgress.setProgress(0);
-                circularProgress.setCenterText("0%");
+                // Goal already reached
+                circularProgress.setProgress(100);
+                circularProgress.setCenterText("Goal Reached!");
             }
         }
     }
 
     /**
-     * Update the quick stats (current weight and streak)
+     * Describe the goal projection: the projected date, and the pace needed if it is late
+     *
+     * @param projection     the projection, or null if there is none
+     * @param targetEpochDay the goal date
+     * @return the text to show, or null if there is nothing to say
      */
-    private void updateQuickStats() {
-        long uid = SessionManager.userId(this);
-        WeightsRepository weightsRepo = new WeightsRepository(this);
-
-        Float currentWeight = weightsRepo.getLatestWeight(uid);
-        if (currentWeight != null) {
-            tvCurrentWeight.setText(String.format("%.1f", currentWeight));
-        } else {
-            tvCurrentWeight.setText("--");
+    private String formatProjection(GoalProjection projection, long targetEpochDay) {
+        if (projection == null)
+            return null;
+        if (projection.reached)
+            return "Recent trend has reached your goal";
+        if (projection.isOnTrack(targetEpochDay))
+            return "On pace for " + formatDate(projection.projectedEpochDay);
+
+        String needed = projection.requiredLbPerDay == null ? null
+                : String.format("need %.1f lb/week", Math.abs(projection.requiredLbPerDay) * 7);
+        if (projection.projectedEpochDay != null) {
+            String late = "At this pace: " + formatDate(projection.projectedEpochDay);
+            return needed == null ? late : late + ", " + needed;
         }
+        return needed == null ? null : "Not trending toward goal, " + needed;
+    }
 
-        int streak = calculateStreak(uid);
-        tvStreak.setText(String.valueOf(streak));
+    // Format a date like "Nov 18, 2025"
+    private static String formatDate(long epochDay) {
+        LocalDate date = DateCodec.toLocalDate(epochDay);
+        String month = date.getMonth().getDisplayName(TextStyle.SHORT, Locale.getDefault());
+        return String.format("%s %d, %d", month, date.getDayOfMonth(), date.getYear());
     }
 
     /**
-     * Calculate the streak
-     * 
-     * @param uid the id of the user
-     * @return the streak
+     * Update the quick stats (current weight and streak)
      */
-    private int calculateStreak(long uid) {
-        /**
-         * Calculate consecutive days of weight logging (streak)
-         * 
-         * Algorithm:
-         * 1. Start from today and work backwards
-         * 2. Check each day for a weight entry
-         * 3. If entry exists, increment streak counter
-         * 4. If no entry found, break the streak
-         * 5. Return total consecutive days
-         * 
-         */
-        WeightsRepository weightsRepo = new WeightsRepository(this);
-        LocalDate today = LocalDate.now();
-        int streak = 0;
-
-        for (int i = 0; i < 30; i++) { // Check last 30 days
-            LocalDate checkDate = today.minusDays(i);
-            if (weightsRepo.hasWeightEntry(uid, checkDate.toString())) {
-                streak++;
-            } else {
-                break;
-            }
+    private void updateQuickStats(DashboardRepository.DashboardSnapshot snapshot) {
+        Float currentWeight = snapshot.latestWeightLb;
+        if (currentWeight != null) {
+            tvCurrentWeight.setText(String.format("%.1f", currentWeight));
+        } else {
+            tvCurrentWeight.setText("--");
         }
 
-        return streak;
+        tvStreak.setText(String.valueOf(snapshot.streak.currentStreak));
     }
 
     /**
@@ -67,15 +67,18 @@ public class MainActivity extends AppCompatActivity {
             Toast.makeText(this, "Enter a username and password.", Toast.LENGTH_SHORT).show();
             return;
         }
-        long id = users.createUser(userName, password);
-        if (id > 0) {
-            getSharedPreferences("session", MODE_PRIVATE)
-                    .edit().putLong("user_id", id).putString("username", userName).apply();
-            Toast.makeText(this, "Account created. Welcome, " + userName + "!", Toast.LENGTH_SHORT).show();
-            goToHomeActivity();
-        } else {
-            Toast.makeText(this, "Username already exists or invalid.", Toast.LENGTH_SHORT).show();
-        }
+        btnCreateAccount.setEnabled(false);
+        users.createUserAsync(this, userName, password, id -> {
+            btnCreateAccount.setEnabled(true);
+            if (id > 0) {
+                getSharedPreferences("session", MODE_PRIVATE)
+                        .edit().putLong("user_id", id).putString("username", userName).apply();
+                Toast.makeText(this, "Account created. Welcome, " + userName + "!", Toast.LENGTH_SHORT).show();
+                goToHomeActivity();
+            } else {
+                Toast.makeText(this, "Username already exists or invalid.", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
@@ -89,13 +92,16 @@ public class MainActivity extends AppCompatActivity {
             Toast.makeText(this, "Enter your username and password.", Toast.LENGTH_SHORT).show();
             return;
         }
-        long userId = users.authenticate(u, p);
-        if (userId > 0) {
-            getSharedPreferences("session", MODE_PRIVATE)
-                    .edit().putLong("user_id", userId).putString("username", u).apply();
-            goToHomeActivity();
-        } else {
-            Toast.makeText(this, "Invalid credentials.", Toast.LENGTH_SHORT).show();
-        }
+        btnSignIn.setEnabled(false);
+        users.authenticateAsync(this, u, p, userId -> {
+            btnSignIn.setEnabled(true);
+            if (userId > 0) {
+                getSharedPreferences("session", MODE_PRIVATE)
+                        .edit().putLong("user_id", userId).putString("username", u).apply();
+                goToHomeActivity();
+            } else {
+                Toast.makeText(this, "Invalid credentials.", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 }
\ No newline at end of file
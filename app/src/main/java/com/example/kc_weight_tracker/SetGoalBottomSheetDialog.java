@@ -3,6 +3,8 @@ package com.example.kc_weight_tracker;
 import android.app.DatePickerDialog;
 import android.content.Context;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -13,7 +15,11 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
 
+import com.example.kc_weight_tracker.data.DatabaseExecutor;
+import com.example.kc_weight_tracker.data.DateCodec;
+import com.example.kc_weight_tracker.data.GoalSimulation;
 import com.example.kc_weight_tracker.repository.UserRepository;
 import com.example.kc_weight_tracker.repository.WeightsRepository;
 import com.example.kc_weight_tracker.repository.WeightGoalRepository;
@@ -28,6 +34,8 @@ import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.Calendar;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * SetGoalBottomSheetDialog is a dialog that allows the user to set a weight goal.
@@ -39,13 +47,16 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
         void onGoalSet();
     }
 
+    /// how long the picker must rest before the chance is recomputed
+    private static final long SIMULATION_DELAY_MS = 50;
+
     private OnGoalSetListener listener;
     private Context context;
 
     // UI Components
     private ImageView btnClose;
     private TextView tvCurrentWeightDisplay, tvCurrentBMI;
-    private TextView tvTargetWeightDisplay, tvTargetBMI, tvWeightChange, tvBMICategory;
+    private TextView tvTargetWeightDisplay, tvTargetBMI, tvWeightChange, tvBMICategory, tvGoalChance;
     private NumberPicker npWeight;
     private TextInputEditText etTargetDate;
     private MaterialButton btnCancel, btnSaveGoal;
@@ -55,6 +66,15 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
     private Float currentWeight;
     private Double userHeight = null; // Will be loaded from database, null if not set
     private LocalDate selectedDate;
+    private long userId;
+
+    // Goal chance simulation, rerun as the target changes
+    @Nullable
+    private GoalSimulation simulation;
+    @Nullable
+    private AtomicBoolean simulationCancel;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable runSimulation = this::runSimulation;
 
     public static SetGoalBottomSheetDialog newInstance(OnGoalSetListener listener) {
         SetGoalBottomSheetDialog dialog = new SetGoalBottomSheetDialog();
@@ -93,6 +113,7 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
         tvTargetBMI = view.findViewById(R.id.tvTargetBMI);
         tvWeightChange = view.findViewById(R.id.tvWeightChange);
         tvBMICategory = view.findViewById(R.id.tvBMICategory);
+        tvGoalChance = view.findViewById(R.id.tvGoalChance);
         npWeight = view.findViewById(R.id.npWeight);
         etTargetDate = view.findViewById(R.id.etTargetDate);
         btnCancel = view.findViewById(R.id.btnCancel);
@@ -104,14 +125,33 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
     }
 
     private void loadCurrentData() {
-        // Get current weight from repository
+        // Set default target date (1 month from now)
+        selectedDate = LocalDate.now().plusMonths(1);
+        updateDateDisplay();
+
+        // Initialize NumberPicker
+        setupNumberPicker();
+
+        // Get current weight and height from the repositories in the background
         WeightsRepository weightsRepo = new WeightsRepository(context);
         UserRepository userRepo = new UserRepository(context);
-        long userId = SessionManager.userId(context);
-
-        currentWeight = weightsRepo.getLatestWeight(userId);
-        userHeight = userRepo.getUserHeight(userId); // Load actual user height
+        userId = SessionManager.userId(context);
+        LifecycleOwner owner = getViewLifecycleOwner();
+
+        weightsRepo.getLatestWeightAsync(owner, userId, weight ->
+                userRepo.getUserHeightAsync(owner, userId, height -> {
+                    currentWeight = weight;
+                    userHeight = height; // Load actual user height
+                    showCurrentData();
+                }));
+
+        weightsRepo.getWeightSeriesAsync(owner, userId, series -> {
+            simulation = GoalSimulation.fromSeries(series);
+            scheduleSimulation();
+        });
+    }
 
+    private void showCurrentData() {
         if (currentWeight != null) {
             tvCurrentWeightDisplay.setText(String.format("%.1f", currentWeight));
 
@@ -122,17 +162,18 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
             } else {
                 tvCurrentBMI.setText("--");
             }
+
+            // Set picker value based on current weight if in range
+            int currentWeightInt = Math.round(currentWeight);
+            if (currentWeightInt >= 100 && currentWeightInt <= 300) {
+                npWeight.setValue(currentWeightInt);
+            }
         } else {
             tvCurrentWeightDisplay.setText("--");
             tvCurrentBMI.setText("--");
         }
 
-        // Set default target date (1 month from now)
-        selectedDate = LocalDate.now().plusMonths(1);
-        updateDateDisplay();
-
-        // Initialize NumberPicker
-        setupNumberPicker();
+        updatePreview();
     }
 
     private void setupNumberPicker() {
@@ -142,17 +183,7 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
         npWeight.setValue(175); // Default value
 
         // Set up change listener
-        npWeight.setOnValueChangedListener((picker, oldVal, newVal) -> {
-            updatePreview();
-        });
-
-        // Set initial value based on current weight if available
-        if (currentWeight != null) {
-            int currentWeightInt = Math.round(currentWeight);
-            if (currentWeightInt >= 100 && currentWeightInt <= 300) {
-                npWeight.setValue(currentWeightInt);
-            }
-        }
+        npWeight.setOnValueChangedListener((picker, oldVal, newVal) -> onTargetChanged());
     }
 
     private void setupClickListeners() {
@@ -169,6 +200,7 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
             int currentValue = npWeight.getValue();
             if (currentValue >= 105) {
                 npWeight.setValue(currentValue - 5);
+                onTargetChanged();
             }
         });
 
@@ -176,6 +208,7 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
             int currentValue = npWeight.getValue();
             if (currentValue > 100) {
                 npWeight.setValue(currentValue - 1);
+                onTargetChanged();
             }
         });
 
@@ -183,6 +216,7 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
             int currentValue = npWeight.getValue();
             if (currentValue < 300) {
                 npWeight.setValue(currentValue + 1);
+                onTargetChanged();
             }
         });
 
@@ -190,6 +224,7 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
             int currentValue = npWeight.getValue();
             if (currentValue <= 295) {
                 npWeight.setValue(currentValue + 5);
+                onTargetChanged();
             }
         });
     }
@@ -237,6 +272,62 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
         }
     }
 
+    // setValue does not call the change listener, so the quick adjust buttons call this too
+    private void onTargetChanged() {
+        updatePreview();
+        scheduleSimulation();
+    }
+
+    /**
+     * Recompute the goal chance once the inputs stop changing.
+     * A run still in progress for older inputs is cancelled.
+     */
+    private void scheduleSimulation() {
+        if (simulationCancel != null) {
+            simulationCancel.set(true);
+        }
+        handler.removeCallbacks(runSimulation);
+        if (simulation == null) {
+            tvGoalChance.setText("Chance by target date: --");
+            return;
+        }
+        handler.postDelayed(runSimulation, SIMULATION_DELAY_MS);
+    }
+
+    // Simulate the current inputs across the common pool and show the result
+    private void runSimulation() {
+        GoalSimulation sim = simulation;
+        float targetLb = npWeight.getValue();
+        long today = DateCodec.toEpochDay(LocalDate.now());
+        long targetDay = DateCodec.toEpochDay(selectedDate);
+        AtomicBoolean cancel = new AtomicBoolean();
+        simulationCancel = cancel;
+        LifecycleOwner owner = getViewLifecycleOwner();
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        pool.execute(() -> {
+            // Seeded by user so the same target and date always show the same chance
+            Double chance = sim.probability(pool, targetLb, today, targetDay,
+                    GoalSimulation.DEFAULT_TRAJECTORIES, userId, cancel);
+            if (chance == null)
+                return;
+            DatabaseExecutor.postToMain(owner, () -> {
+                if (!cancel.get()) {
+                    tvGoalChance.setText(String.format("Chance by target date: %.0f%%", chance * 100));
+                }
+            });
+        });
+    }
+
+    @Override
+    public void onDestroyView() {
+        handler.removeCallbacks(runSimulation);
+        if (simulationCancel != null) {
+            simulationCancel.set(true);
+        }
+        super.onDestroyView();
+    }
+
     private void showDatePicker() {
         Calendar calendar = Calendar.getInstance();
         calendar.set(selectedDate.getYear(), selectedDate.getMonthValue() - 1, selectedDate.getDayOfMonth());
@@ -246,6 +337,7 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
                 (view, year, month, dayOfMonth) -> {
                     selectedDate = LocalDate.of(year, month + 1, dayOfMonth);
                     updateDateDisplay();
+                    scheduleSimulation();
                 },
                 calendar.get(Calendar.YEAR),
                 calendar.get(Calendar.MONTH),
@@ -279,20 +371,22 @@ public class SetGoalBottomSheetDialog extends BottomSheetDialogFragment {
 
         // Save goal to database
         WeightGoalRepository goalRepo = new WeightGoalRepository(context);
-        long userId = SessionManager.userId(context);
-
-        long newGoalId = goalRepo.upsertGoal(userId, (float) targetWeight, selectedDate.toString());
-        if (newGoalId > 0) {
-            Toast.makeText(context, "Goal saved successfully!", Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(context, "Error while saving your goal.", Toast.LENGTH_SHORT).show();
-        }
-
-
-        if (listener != null) {
-            listener.onGoalSet();
-        }
 
-        dismiss();
+        btnSaveGoal.setEnabled(false);
+        goalRepo.upsertGoalAsync(getViewLifecycleOwner(), userId, (float) targetWeight,
+                DateCodec.toEpochDay(selectedDate),
+                newGoalId -> {
+                    if (newGoalId > 0) {
+                        Toast.makeText(context, "Goal saved successfully!", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(context, "Error while saving your goal.", Toast.LENGTH_SHORT).show();
+                    }
+
+                    if (listener != null) {
+                        listener.onGoalSet();
+                    }
+
+                    dismiss();
+                });
     }
 }
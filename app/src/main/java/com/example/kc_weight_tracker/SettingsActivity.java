@@ -4,7 +4,9 @@ import android.Manifest;
 import android.app.TimePickerDialog;
 import android.content.pm.PackageManager;
 import android.content.SharedPreferences;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.view.MenuItem;
 import android.widget.NumberPicker;
 import android.widget.TextView;
@@ -13,15 +15,20 @@ import android.widget.Toast;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 
+import com.example.kc_weight_tracker.repository.CsvRepository;
 import com.example.kc_weight_tracker.repository.UserRepository;
 import com.example.kc_weight_tracker.utility.SessionManager;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 
+import java.time.LocalDate;
+
 /**
  * SettingsActivity is the activity that allows the user to view and edit their
  * settings.
@@ -36,10 +43,16 @@ public class SettingsActivity extends AppCompatActivity {
     private SwitchMaterial switchDailyReminder, switchGoalReminders;
     private TextView tvReminderTime;
     private MaterialButton btnSetTime;
-    private MaterialButton btnChangeUnits, btnExportData;
+    private MaterialButton btnChangeUnits, btnExportData, btnImportData;
+    private TextView tvExportStatus, tvImportStatus;
 
     // Data
     private UserRepository userRepository;
+    private CsvRepository csvRepository;
+    @Nullable
+    private CancellationSignal exportCancel; // non-null while an export runs
+    @Nullable
+    private CancellationSignal importCancel; // non-null while an import runs
     private long userId;
     private double currentHeight;
     private int reminderHour = 9;
@@ -99,6 +112,22 @@ public class SettingsActivity extends AppCompatActivity {
                 setupNotificationListeners();
             });
 
+    // Export document picker launcher
+    private final ActivityResultLauncher<String> createExportDocument = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("text/csv"), uri -> {
+                if (uri != null) {
+                    startExport(uri);
+                }
+            });
+
+    // Import document picker launcher
+    private final ActivityResultLauncher<String[]> openImportDocument = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), uri -> {
+                if (uri != null) {
+                    startImport(uri);
+                }
+            });
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -121,8 +150,12 @@ public class SettingsActivity extends AppCompatActivity {
         btnSetTime = findViewById(R.id.btnSetTime);
         btnChangeUnits = findViewById(R.id.btnChangeUnits);
         btnExportData = findViewById(R.id.btnExportData);
+        tvExportStatus = findViewById(R.id.tvExportStatus);
+        btnImportData = findViewById(R.id.btnImportData);
+        tvImportStatus = findViewById(R.id.tvImportStatus);
 
         userRepository = new UserRepository(this);
+        csvRepository = new CsvRepository(this);
         userId = SessionManager.userId(this);
         notificationPrefs = getSharedPreferences("notification_settings", MODE_PRIVATE);
     }
@@ -137,17 +170,18 @@ public class SettingsActivity extends AppCompatActivity {
 
     // * Load the user data */
     private void loadUserData() {
-        // Load current height
-        Double heightValue = userRepository.getUserHeight(userId);
-        currentHeight = heightValue != null ? heightValue : 70.0; // Default to 70 inches if not set
-
         // Setup height picker
         npHeight.setMinValue(48); // 4 feet
         npHeight.setMaxValue(84); // 7 feet
-        npHeight.setValue((int) currentHeight);
 
-        // Update height display
-        updateHeightDisplay();
+        // Load current height
+        userRepository.getUserHeightAsync(this, userId, heightValue -> {
+            currentHeight = heightValue != null ? heightValue : 70.0; // Default to 70 inches if not set
+            npHeight.setValue((int) currentHeight);
+
+            // Update height display
+            updateHeightDisplay();
+        });
 
         // Load saved notification preferences
         loadNotificationPreferences();
@@ -178,24 +212,129 @@ public class SettingsActivity extends AppCompatActivity {
             Toast.makeText(this, "Units change coming soon!", Toast.LENGTH_SHORT).show();
         });
 
-        // Data export
+        // Data export, tapping again while it runs cancels it
         btnExportData.setOnClickListener(v -> {
-            // TODO: Implement data export
-            Toast.makeText(this, "Data export coming soon!", Toast.LENGTH_SHORT).show();
+            if (exportCancel != null) {
+                exportCancel.cancel();
+            } else {
+                createExportDocument.launch("weight-history-" + LocalDate.now() + ".csv");
+            }
+        });
+
+        // Data import, tapping again while it runs stops it after the current batch
+        btnImportData.setOnClickListener(v -> {
+            if (importCancel != null) {
+                importCancel.cancel();
+            } else {
+                openImportDocument.launch(new String[] { "text/*", "application/csv" });
+            }
         });
     }
 
+    // * Export the user's data as CSV to the chosen document */
+    private void startExport(Uri uri) {
+        exportCancel = new CancellationSignal();
+        btnExportData.setText("Cancel");
+        tvExportStatus.setText("Exporting...");
+
+        csvRepository.exportCsvAsync(this, userId, uri,
+                (done, total) -> tvExportStatus.setText(String.format("Exporting... %d of %d rows", done, total)),
+                exportCancel,
+                result -> {
+                    exportCancel = null;
+                    btnExportData.setText("Export");
+                    tvExportStatus.setText("Export your weight data");
+
+                    if (result.isSuccess()) {
+                        Toast.makeText(this, "Exported " + result.rowsWritten + " rows", Toast.LENGTH_SHORT).show();
+                    } else if (result.cancelled) {
+                        Toast.makeText(this, "Export cancelled", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "Export failed", Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    // * Import weight history from the chosen CSV document */
+    private void startImport(Uri uri) {
+        importCancel = new CancellationSignal();
+        btnImportData.setText("Cancel");
+        tvImportStatus.setText("Importing...");
+
+        csvRepository.importCsvAsync(this, userId, uri,
+                (done, total) -> tvImportStatus.setText(String.format("Importing... %d rows read", done)),
+                importCancel,
+                result -> {
+                    importCancel = null;
+                    btnImportData.setText("Import");
+                    tvImportStatus.setText("Load weight history from a CSV file");
+
+                    if (result.error != null) {
+                        // Batches that committed before the failure are kept
+                        String message = result.imported > 0
+                                ? "Import failed after " + result.imported + " entries were saved"
+                                : "Import failed";
+                        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+                    } else {
+                        showImportSummary(result);
+                    }
+                });
+    }
+
+    // * Show what an import added, skipped and rejected */
+    private void showImportSummary(CsvRepository.ImportResult result) {
+        StringBuilder message = new StringBuilder();
+        message.append(result.imported).append(" entries imported");
+        if (result.alreadyLogged > 0) {
+            message.append("\n").append(result.alreadyLogged).append(" skipped, date already logged");
+        }
+        if (result.goalImported) {
+            message.append("\nGoal updated");
+        }
+        if (result.errorCount > 0) {
+            message.append("\n").append(result.errorCount).append(" lines rejected:");
+            for (CsvRepository.RowError error : result.errors) {
+                message.append("\nLine ").append(error.line).append(": ").append(error.message);
+            }
+            if (result.errorCount > result.errors.size()) {
+                message.append("\n...");
+            }
+        }
+
+        new MaterialAlertDialogBuilder(this)
+                .setTitle(result.cancelled ? "Import cancelled" : "Import complete")
+                .setMessage(message)
+                .setPositiveButton("OK", null)
+                .show();
+    }
+
+    // * Stop a running export or import when leaving the screen */
+    @Override
+    protected void onDestroy() {
+        if (isFinishing()) {
+            if (exportCancel != null) {
+                exportCancel.cancel();
+            }
+            if (importCancel != null) {
+                importCancel.cancel();
+            }
+        }
+        super.onDestroy();
+    }
+
     // * Save the height */
     private void saveHeight() {
         double newHeight = npHeight.getValue();
 
-        if (userRepository.updateUserHeight(userId, newHeight)) {
-            currentHeight = newHeight;
-            updateHeightDisplay();
-            Toast.makeText(this, "Height updated successfully!", Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, "Failed to update height", Toast.LENGTH_SHORT).show();
-        }
+        userRepository.updateUserHeightAsync(this, userId, newHeight, updated -> {
+            if (updated) {
+                currentHeight = newHeight;
+                updateHeightDisplay();
+                Toast.makeText(this, "Height updated successfully!", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "Failed to update height", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     // * Update the height display */
@@ -0,0 +1,54 @@
+package com.example.kc_weight_tracker;
+
+import android.app.Application;
+import android.os.StrictMode;
+
+import com.example.kc_weight_tracker.data.DatabaseHelper;
+
+/**
+ * WeightTrackerApplication owns process-wide resources, such as the shared
+ * database connection used by all repositories, and sets up StrictMode in
+ * debug builds.
+ */
+public class WeightTrackerApplication extends Application {
+
+    /**
+     * Called when the process is created, creates the shared database helper
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.DEBUG) {
+            enableStrictMode();
+        }
+        DatabaseHelper.getInstance(this);
+    }
+
+    /**
+     * Flags disk access on the main thread and leaked database objects in
+     * debug builds, so repository calls that bypass DatabaseExecutor show up
+     * in logcat
+     */
+    private void enableStrictMode() {
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog()
+                .build());
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedSqlLiteObjects()
+                .detectLeakedClosableObjects()
+                .penaltyLog()
+                .build());
+    }
+
+    /**
+     * Called when the process is terminated (emulated processes only),
+     * closes the shared database so the WAL is checkpointed cleanly
+     */
+    @Override
+    public void onTerminate() {
+        DatabaseHelper.closeInstance();
+        super.onTerminate();
+    }
+}
@@ -8,18 +8,24 @@ import android.view.MenuItem;
 import android.widget.Toast;
 
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.Calendar;
-import java.util.List;
 import java.util.Locale;
+import java.util.function.UnaryOperator;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.kc_weight_tracker.data.DatabaseExecutor;
+import com.example.kc_weight_tracker.data.DateCodec;
+import com.example.kc_weight_tracker.data.WeightLodPyramid;
+import com.example.kc_weight_tracker.data.WeightSeries;
 import com.example.kc_weight_tracker.repository.WeightsRepository;
 import com.example.kc_weight_tracker.utility.NavUtil;
 import com.example.kc_weight_tracker.utility.SessionManager;
+import com.example.kc_weight_tracker.utility.WeightValidator;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
@@ -36,11 +42,18 @@ public class WeightTrackingActivity extends AppCompatActivity {
     private MaterialButton btnAdd;
     private MaterialButton btnWeightPlus1, btnWeightPlus5, btnWeightMinus1, btnWeightMinus5;
     private RecyclerView rvGrid;
+    private WeightTrendChartView chartTrend;
 
     private WeightsRepository repo;
     private WeightsAdapter adapter;
     private long userId;
 
+    /// the series the chart shows, kept so an add or delete is applied without a reload
+    private WeightSeries chartSeries = WeightSeries.EMPTY;
+    private boolean chartLoaded;
+    /// bumped on every chart change, so an older load or build cannot overwrite a newer one
+    private int chartGeneration;
+
     /**
      * Creates the options menu
      * 
@@ -98,16 +111,19 @@ public class WeightTrackingActivity extends AppCompatActivity {
         btnWeightMinus1 = findViewById(R.id.btnWeightMinus1);
         btnWeightMinus5 = findViewById(R.id.btnWeightMinus5);
         rvGrid = findViewById(R.id.rvGrid);
+        chartTrend = findViewById(R.id.chartTrend);
 
         // RecyclerView
         rvGrid.setLayoutManager(new LinearLayoutManager(this));
-        List<WeightsRepository.WeightDTO> weightHistory = repo.getWeightHistory(userId);
         adapter = new WeightsAdapter(
-                weightHistory,
-                id -> { // onDelete
-                    repo.deleteWeight(id);
-                    refresh();
-                });
+                (beforeEpochDay, limit, callback) -> // load one page of history
+                        repo.getWeightHistoryPageAsync(this, userId, beforeEpochDay, limit, callback),
+                id -> repo.deleteWeightAsync(this, id, rows -> { // onDelete
+                    if (rows > 0) {
+                        adapter.removeById(id);
+                        editChart(series -> series.withoutId(id));
+                    }
+                }));
         rvGrid.setAdapter(adapter);
 
         // Date picker
@@ -118,7 +134,10 @@ public class WeightTrackingActivity extends AppCompatActivity {
         setupDateHint();
 
         // Setup weight input
-        setupWeightInput(weightHistory);
+        setupWeightInput();
+
+        // Load history in the background and default the weight to the latest entry
+        refresh(true);
 
         // Quick adjust buttons
         btnWeightPlus1.setOnClickListener(v -> adjustWeight(1.0f));
@@ -133,16 +152,16 @@ public class WeightTrackingActivity extends AppCompatActivity {
     /**
      * Adds a new weight entry to the database after validating user input.
      * Performs comprehensive validation including date selection, weight format,
-     * weight range (50-1000 lbs), and duplicate date checking.
+     * weight range (see {@link WeightValidator}), and duplicate date checking.
      */
     private void addWeight() {
-        // Get the ISO formatted date from the date picker tag
-        String dateIso = (String) etDate.getTag();
+        // Get the epoch day from the date picker tag
+        Long epochDay = (Long) etDate.getTag();
         // Get weight input and trim whitespace
         String weightStr = etWeight.getText() != null ? etWeight.getText().toString().trim() : "";
 
         // Validate that user has selected a date
-        if (TextUtils.isEmpty(dateIso)) {
+        if (epochDay == null) {
             toast("Please select a date");
             return;
         }
@@ -164,44 +183,51 @@ public class WeightTrackingActivity extends AppCompatActivity {
             return;
         }
 
-        // Validate weight is within reasonable range (50-1000 lbs)
-        if (weight < 50 || weight > 1000) {
-            tilWeight.setError("Weight must be between 50-1000 lbs");
+        // Validate weight is within the range WeightValidator allows
+        String weightError = WeightValidator.getValidationMessage(weight);
+        if (weightError != null) {
+            tilWeight.setError(weightError);
             etWeight.requestFocus();
             return;
         }
 
-        // Check if weight entry already exists for this date
-        if (repo.hasWeightEntry(userId, dateIso)) {
-            tilWeight.setError(null);
-            toast("Weight already logged for this date");
-            return;
-        }
-
-        // Attempt to save weight entry to database
-        long rowId = repo.addWeight(userId, dateIso, weight);
-        if (rowId > 0) {
-            // Clear any error messages and show success feedback
+        // Attempt to save weight entry to database; the unique date index
+        // rejects the insert if this date is already logged
+        btnAdd.setEnabled(false);
+        repo.addWeightAsync(this, userId, epochDay, weight, rowId -> {
+            btnAdd.setEnabled(true);
             tilWeight.setError(null);
-            toast("Weight logged successfully!");
-            clearInputs();
-            refresh();
-        } else {
-            toast("Could not add weight");
-        }
+            if (rowId > 0) {
+                // Show success feedback
+                toast("Weight logged successfully!");
+                clearInputs();
+                adapter.insert(new WeightsRepository.WeightDTO(rowId, userId, epochDay, weight));
+                // A load that raced the insert may already hold the entry
+                editChart(series -> series.indexOfDay(epochDay.intValue()) >= 0 ? series
+                        : series.withEntry(epochDay.intValue(), weight, rowId));
+                repo.getLatestWeightAsync(this, userId, this::setDefaultWeight);
+            } else {
+                toast("Weight already logged for this date");
+            }
+        });
     }
 
-    private void setupWeightInput(List<WeightsRepository.WeightDTO> weightHistory) {
-        // Set default weight based on latest entry
-        if (weightHistory.isEmpty()) {
+    /**
+     * Sets the weight input to the latest entry, or 150.0 if there is none
+     * 
+     * @param lastWeight the latest weight, or null if none
+     */
+    private void setDefaultWeight(Float lastWeight) {
+        if (lastWeight == null) {
             etWeight.setText("150.0");
         } else {
-            WeightsRepository.WeightDTO lastWeight = weightHistory.get(0);
             // Format the weight to ensure proper decimal display
-            String weightText = String.format("%.1f", lastWeight.weightLb);
+            String weightText = String.format("%.1f", lastWeight);
             etWeight.setText(weightText);
         }
+    }
 
+    private void setupWeightInput() {
         // Add keyboard action listener
         etWeight.setOnEditorActionListener((v, actionId, event) -> {
             if (actionId == android.view.inputmethod.EditorInfo.IME_ACTION_DONE) {
@@ -254,12 +280,8 @@ public class WeightTrackingActivity extends AppCompatActivity {
             float currentWeight = Float.parseFloat(currentText);
             float newWeight = currentWeight + amount;
 
-            // Ensure value stays within bounds
-            if (newWeight < 50) {
-                newWeight = 50;
-            } else if (newWeight > 1000) {
-                newWeight = 1000;
-            }
+            // Ensure value stays within the range a weight can be logged in
+            newWeight = Math.max(WeightValidator.MIN_LB, Math.min(WeightValidator.MAX_LB, newWeight));
 
             etWeight.setText(String.format("%.1f", newWeight));
         } catch (NumberFormatException e) {
@@ -280,11 +302,7 @@ public class WeightTrackingActivity extends AppCompatActivity {
 
         try {
             float weight = Float.parseFloat(input);
-            if (weight < 50 || weight > 1000) {
-                tilWeight.setError("Weight must be between 50-1000 lbs");
-            } else {
-                tilWeight.setError(null);
-            }
+            tilWeight.setError(WeightValidator.getValidationMessage(weight));
         } catch (NumberFormatException e) {
             tilWeight.setError("Please enter a valid number");
         }
@@ -306,10 +324,8 @@ public class WeightTrackingActivity extends AppCompatActivity {
                     String displayDate = displayFormat.format(selectedDate.getTime());
                     etDate.setText(displayDate);
 
-                    // Store ISO date for database
-                    String isoDate = String.format("%04d-%02d-%02d",
-                            year, month + 1, dayOfMonth);
-                    etDate.setTag(isoDate);
+                    // Store epoch day for database
+                    etDate.setTag(DateCodec.toEpochDay(LocalDate.of(year, month + 1, dayOfMonth)));
                 },
                 today.get(Calendar.YEAR),
                 today.get(Calendar.MONTH),
@@ -330,27 +346,70 @@ public class WeightTrackingActivity extends AppCompatActivity {
     }
 
     /**
-     * Refreshes the weight history list
+     * Refreshes the loaded pages of the weight history list and the chart in the background
+     * 
+     * @param resetWeight true to also reset the weight input to the latest entry
+     */
+    private void refresh(boolean resetWeight) {
+        adapter.reload();
+        loadChart();
+        if (resetWeight) {
+            repo.getLatestWeightAsync(this, userId, this::setDefaultWeight);
+        }
+    }
+
+    /**
+     * Loads the full history into the trend chart in the background
      */
-    private void refresh() {
-        List<WeightsRepository.WeightDTO> items = repo.getWeightHistory(userId);
-        adapter.replace(items);
+    private void loadChart() {
+        int generation = ++chartGeneration;
+        chartLoaded = false;
+        repo.getWeightSeriesAsync(this, userId, series -> {
+            if (generation == chartGeneration) {
+                chartLoaded = true;
+                showChart(series);
+            }
+        });
     }
 
     /**
-     * Clears the weight input fields
+     * Applies a single add or delete to the chart's series, or reloads it if
+     * the first load has not arrived yet and might predate the edit
+     *
+     * @param edit the change to the series
      */
-    private void clearInputs() {
-        // Get the latest weight to use as default
-        List<WeightsRepository.WeightDTO> weightHistory = repo.getWeightHistory(userId);
-        if (weightHistory.isEmpty()) {
-            etWeight.setText("150.0");
+    private void editChart(UnaryOperator<WeightSeries> edit) {
+        if (chartLoaded) {
+            showChart(edit.apply(chartSeries));
         } else {
-            WeightsRepository.WeightDTO lastWeight = weightHistory.get(0);
-            String weightText = String.format("%.1f", lastWeight.weightLb);
-            etWeight.setText(weightText);
+            loadChart();
         }
+    }
 
+    /**
+     * Builds the chart's pyramid on the reader pool and hands it to the chart,
+     * which keeps its current pan and zoom
+     *
+     * @param series the weights, oldest first
+     */
+    private void showChart(WeightSeries series) {
+        chartSeries = series;
+        int generation = ++chartGeneration;
+        DatabaseExecutor.readers().execute(() -> {
+            WeightLodPyramid pyramid = WeightLodPyramid.build(series);
+            DatabaseExecutor.postToMain(this, () -> {
+                if (generation == chartGeneration) {
+                    chartTrend.setPyramid(pyramid);
+                }
+            });
+        });
+    }
+
+    /**
+     * Clears the date input fields; the weight input is reset to the
+     * latest entry separately
+     */
+    private void clearInputs() {
         // Clear date fields
         etDate.setText("");
         etDate.setTag(null);
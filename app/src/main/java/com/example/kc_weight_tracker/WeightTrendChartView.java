@@ -0,0 +1,277 @@
+package com.example.kc_weight_tracker;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.kc_weight_tracker.data.WeightLodPyramid;
+import com.example.kc_weight_tracker.utility.WeightFormat;
+
+/**
+ * WeightTrendChartView is a custom view that draws the weight history as a line.
+ * It draws from a {@link WeightLodPyramid}, picking the level with about one
+ * bucket per pixel and drawing each bucket's min and max, so a decade of daily
+ * entries costs the same to draw as a month. Drag to pan, pinch to zoom and
+ * double-tap to show everything. Paints, the path and the label builder are
+ * created once, so drawing a frame allocates nothing.
+ */
+public class WeightTrendChartView extends View {
+    /// the narrowest window that can be zoomed to, in days
+    private static final double MIN_VISIBLE_DAYS = 7;
+
+    private Paint linePaint;
+    private Paint gridPaint;
+    private Paint textPaint;
+    private Path path;
+    private StringBuilder label;
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector gestureDetector;
+
+    @Nullable
+    private WeightLodPyramid pyramid;
+    // The visible window, in epoch days
+    private double viewStart;
+    private double viewDays;
+
+    // Constructors
+    public WeightTrendChartView(Context context) {
+        super(context);
+        init();
+    }
+
+    public WeightTrendChartView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    public WeightTrendChartView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+
+    /**
+     * Initializes the WeightTrendChartView
+     */
+    private void init() {
+        float density = getResources().getDisplayMetrics().density;
+
+        linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        linePaint.setColor(getContext().getColor(R.color.blue_600));
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(2f * density);
+        linePaint.setStrokeJoin(Paint.Join.ROUND);
+        linePaint.setStrokeCap(Paint.Cap.ROUND);
+
+        gridPaint = new Paint();
+        gridPaint.setColor(getContext().getColor(R.color.gray_300));
+        gridPaint.setStrokeWidth(density);
+
+        textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setColor(getContext().getColor(R.color.gray_600));
+        textPaint.setTextSize(12f * density);
+
+        path = new Path();
+        label = new StringBuilder(16);
+
+        scaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                zoom(detector.getScaleFactor(), detector.getFocusX());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(getContext(), new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float dx, float dy) {
+                pan(dx);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                showAll();
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Sets the pyramid to draw, built off the main thread with
+     * {@link WeightLodPyramid#build}. The visible window is kept so an edit
+     * does not lose the user's pan and zoom; the whole history is shown only
+     * when nothing was shown before.
+     *
+     * @param pyramid the pyramid, or null if there are no weights
+     */
+    public void setPyramid(@Nullable WeightLodPyramid pyramid) {
+        boolean wasEmpty = this.pyramid == null;
+        this.pyramid = pyramid;
+        if (wasEmpty || pyramid == null) {
+            showAll();
+        } else {
+            viewDays = Math.min(viewDays, fullDays());
+            clampWindow();
+            invalidate();
+        }
+    }
+
+    /**
+     * Draws the WeightTrendChartView
+     *
+     * @param canvas The canvas to draw on
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        float left = getPaddingLeft();
+        float top = getPaddingTop() + textPaint.getTextSize();
+        float right = getWidth() - getPaddingRight();
+        float bottom = getHeight() - getPaddingBottom() - textPaint.getTextSize();
+        float width = right - left;
+        if (pyramid == null || width <= 0 || bottom <= top) {
+            canvas.drawText("No weights logged yet", left, top, textPaint);
+            return;
+        }
+
+        // Buckets about a pixel wide, plus one either side so the line reaches the edges
+        double daysPerPixel = viewDays / width;
+        int level = pyramid.levelFor(daysPerPixel);
+        int from = Math.max(0, pyramid.bucketOf(level, viewStart) - 1);
+        int to = Math.min(pyramid.bucketCount(level) - 1, pyramid.bucketOf(level, viewStart + viewDays) + 1);
+
+        float low = Float.POSITIVE_INFINITY;
+        float high = Float.NEGATIVE_INFINITY;
+        for (int b = from; b <= to; b++) {
+            float min = pyramid.min(level, b);
+            if (!Float.isNaN(min)) {
+                low = Math.min(low, min);
+                high = Math.max(high, pyramid.max(level, b));
+            }
+        }
+        if (low > high) {
+            canvas.drawText("No weights in this range", left, top, textPaint);
+            return;
+        }
+        // Pad by at least a pound so a flat line is not stretched to the edges
+        float pad = Math.max(1f, (high - low) * 0.1f);
+        low -= pad;
+        high += pad;
+        float pxPerLb = (bottom - top) / (high - low);
+
+        drawGridLine(canvas, left, right, top, high);
+        drawGridLine(canvas, left, right, bottom, low);
+
+        // Each bucket draws as a vertical stroke from its max to its min at its centre
+        double halfBucket = (1 << level) / 2.0;
+        boolean started = false;
+        path.rewind();
+        for (int b = from; b <= to; b++) {
+            float min = pyramid.min(level, b);
+            if (Float.isNaN(min))
+                continue;
+            float max = pyramid.max(level, b);
+            float x = (float) (left + (pyramid.bucketStartDay(level, b) + halfBucket - viewStart) / daysPerPixel);
+            float yMax = bottom - (max - low) * pxPerLb;
+            float yMin = bottom - (min - low) * pxPerLb;
+            if (started) {
+                path.lineTo(x, yMax);
+            } else {
+                path.moveTo(x, yMax);
+                started = true;
+            }
+            path.lineTo(x, yMin); // zero length for a single entry, drawn as a dot by the round cap
+        }
+
+        canvas.save();
+        canvas.clipRect(left, 0, right, getHeight());
+        canvas.drawPath(path, linePaint);
+        canvas.restore();
+    }
+
+    /** Draw a horizontal line with its weight label above it */
+    private void drawGridLine(Canvas canvas, float left, float right, float y, float weightLb) {
+        canvas.drawLine(left, y, right, y, gridPaint);
+        label.setLength(0);
+        WeightFormat.appendWeight(label, weightLb).append(" lb");
+        canvas.drawText(label, 0, label.length(), left, y - textPaint.descent(), textPaint);
+    }
+
+    /**
+     * Handles pan and zoom gestures
+     *
+     * @param event the touch event
+     * @return true if the event was handled
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (pyramid == null)
+            return super.onTouchEvent(event);
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN && getParent() != null) {
+            // Keep a horizontal drag on the chart instead of scrolling the screen
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+        boolean handled = scaleDetector.onTouchEvent(event);
+        if (!scaleDetector.isInProgress()) {
+            handled = gestureDetector.onTouchEvent(event) || handled;
+        }
+        return handled || super.onTouchEvent(event);
+    }
+
+    /** Move the window by a drag of dx pixels */
+    private void pan(float dx) {
+        float width = getWidth() - getPaddingLeft() - getPaddingRight();
+        if (width <= 0)
+            return;
+        viewStart += dx * viewDays / width;
+        clampWindow();
+        invalidate();
+    }
+
+    /** Zoom by a factor, keeping the day under focusX in place */
+    private void zoom(float factor, float focusX) {
+        float width = getWidth() - getPaddingLeft() - getPaddingRight();
+        if (width <= 0 || pyramid == null)
+            return;
+        double fraction = Math.max(0, Math.min(1, (focusX - getPaddingLeft()) / width));
+        double focusDay = viewStart + fraction * viewDays;
+        viewDays = Math.max(MIN_VISIBLE_DAYS, Math.min(fullDays(), viewDays / factor));
+        viewStart = focusDay - fraction * viewDays;
+        clampWindow();
+        invalidate();
+    }
+
+    /** Show the whole history */
+    private void showAll() {
+        if (pyramid != null) {
+            viewDays = fullDays();
+            viewStart = pyramid.getFirstDay();
+        }
+        invalidate();
+    }
+
+    /// the whole history plus a day, never narrower than the zoom limit
+    private double fullDays() {
+        return Math.max(MIN_VISIBLE_DAYS, pyramid.getLastDay() - pyramid.getFirstDay() + 1);
+    }
+
+    private void clampWindow() {
+        double first = pyramid.getFirstDay();
+        double last = first + fullDays();
+        viewStart = Math.max(first, Math.min(last - viewDays, viewStart));
+    }
+}
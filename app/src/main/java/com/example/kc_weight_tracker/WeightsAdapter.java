@@ -1,5 +1,7 @@
 package com.example.kc_weight_tracker;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,17 +9,27 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.kc_weight_tracker.data.DatabaseExecutor;
 import com.example.kc_weight_tracker.repository.WeightsRepository;
+import com.example.kc_weight_tracker.utility.WeightFormat;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * WeightsAdapter is a class that displays the weight history in a RecyclerView.
+ * History is loaded a page at a time, newest first; the next page is requested
+ * when a row within {@link #PREFETCH_DISTANCE} of the end is bound.
+ * Reloads are diffed against the current rows on a background thread, and
+ * single-row changes the caller already knows about are applied directly with
+ * {@link #insert} and {@link #removeById}.
+ * Display labels are formatted once per row when its page arrives, so binding
+ * only sets prepared text.
  */
 public class WeightsAdapter extends RecyclerView.Adapter<WeightsAdapter.VH> {
 
@@ -25,18 +37,133 @@ public class WeightsAdapter extends RecyclerView.Adapter<WeightsAdapter.VH> {
         void delete(long id);
     }
 
+    /// loads up to limit entries older than beforeEpochDay (WeightsRepository.FIRST_PAGE for the first page)
+    public interface PageLoader {
+        void load(long beforeEpochDay, int limit,
+                DatabaseExecutor.Callback<List<WeightsRepository.WeightDTO>> callback);
+    }
+
+    public static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 15;
+
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "weights-diff");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private final PageLoader loader;
     private final OnDelete onDelete;
-    private final List<WeightsRepository.WeightDTO> items = new ArrayList<>();
+    private List<Row> items = new ArrayList<>();
+
+    private boolean loading;
+    private boolean endReached;
+    private int generation; // bumped on reload so late pages from an older load are dropped
+    private int mutations; // bumped on every change to items, so a stale diff is never applied
 
-    public WeightsAdapter(List<WeightsRepository.WeightDTO> initial, OnDelete onDelete) {
-        if (initial != null) items.addAll(initial);
+    public WeightsAdapter(PageLoader loader, OnDelete onDelete) {
+        this.loader = loader;
         this.onDelete = onDelete;
+        setHasStableIds(true);
     }
 
-    public void replace(List<WeightsRepository.WeightDTO> data) {
-        items.clear();
-        if (data != null) items.addAll(data);
-        notifyDataSetChanged();
+    /**
+     * Reload from the newest entry, keeping as many rows as are loaded now
+     * so the user's scroll position survives the refresh
+     */
+    public void reload() {
+        int limit = Math.max(PAGE_SIZE, items.size());
+        int gen = ++generation;
+        loading = true;
+        loader.load(WeightsRepository.FIRST_PAGE, limit, page -> {
+            if (gen != generation) return;
+            submit(gen, page, page.size() < limit);
+        });
+    }
+
+    /**
+     * Insert a row the caller just added, at its date position.
+     * Rows older than everything loaded are skipped while more pages remain;
+     * they will arrive with the page that covers their date.
+     *
+     * @param row the new row
+     */
+    public void insert(WeightsRepository.WeightDTO row) {
+        int pos = 0;
+        while (pos < items.size() && items.get(pos).data.epochDay > row.epochDay) {
+            pos++;
+        }
+        if (pos == items.size() && !endReached) return;
+        items.add(pos, Row.of(row));
+        mutations++;
+        notifyItemInserted(pos);
+    }
+
+    /**
+     * Remove a row the caller just deleted
+     *
+     * @param id the id of the deleted row
+     */
+    public void removeById(long id) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).data.id == id) {
+                items.remove(i);
+                mutations++;
+                notifyItemRemoved(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Format and diff the new rows against the current ones off the main
+     * thread, then dispatch the changes
+     */
+    private void submit(int gen, List<WeightsRepository.WeightDTO> data, boolean end) {
+        List<Row> oldItems = new ArrayList<>(items);
+        int expected = mutations;
+        DIFF_EXECUTOR.execute(() -> {
+            List<Row> rows = Row.of(data);
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new RowDiff(oldItems, rows));
+            MAIN.post(() -> {
+                if (gen != generation) return;
+                loading = false;
+                endReached = end;
+                boolean stale = expected != mutations;
+                items = rows;
+                mutations++;
+                if (!stale) {
+                    result.dispatchUpdatesTo(this);
+                } else {
+                    // Rows changed while diffing, the result no longer describes them
+                    notifyDataSetChanged();
+                }
+            });
+        });
+    }
+
+    /** Request the page after the oldest loaded row, unless one is in flight or none remain */
+    private void loadNextPage() {
+        if (loading || endReached || items.isEmpty()) return;
+        int gen = generation;
+        long before = items.get(items.size() - 1).data.epochDay;
+        loading = true;
+        loader.load(before, PAGE_SIZE, page -> {
+            if (gen != generation) return;
+            DIFF_EXECUTOR.execute(() -> {
+                List<Row> rows = Row.of(page);
+                MAIN.post(() -> {
+                    if (gen != generation) return;
+                    loading = false;
+                    endReached = page.size() < PAGE_SIZE;
+                    int start = items.size();
+                    items.addAll(rows);
+                    mutations++;
+                    notifyItemRangeInserted(start, rows.size());
+                });
+            });
+        });
     }
 
     //* Create the view holder */
@@ -45,24 +172,30 @@ public class WeightsAdapter extends RecyclerView.Adapter<WeightsAdapter.VH> {
     public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View v = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_weight_entry, parent, false);
-        return new VH(v);
+        VH h = new VH(v);
+        // One listener per holder, resolving the row at click time
+        h.btnDelete.setOnClickListener(btn -> {
+            int pos = h.getBindingAdapterPosition();
+            if (pos != RecyclerView.NO_POSITION) {
+                onDelete.delete(items.get(pos).data.id);
+            }
+        });
+        return h;
     }
 
     //* Bind the view holder */
     @Override
     public void onBindViewHolder(@NonNull VH h, int pos) {
-        WeightsRepository.WeightDTO row = items.get(pos);
-
-        // Show friendly date, fall back to raw if parsing ever fails
-        String pretty = row.dateIso;
-        try {
-            pretty = LocalDate.parse(row.dateIso)
-                    .format(DateTimeFormatter.ofPattern("MMM dd, yyyy"));
-        } catch (Exception ignore) {}
-
-        h.tvDate.setText(pretty);
-        h.tvWeight.setText(String.format("%.1f lb", row.weightLb));
-        h.btnDelete.setOnClickListener(v -> onDelete.delete(row.id));
+        Row row = items.get(pos);
+
+        // Labels were formatted when the page arrived
+        h.tvDate.setText(row.dateLabel);
+        h.tvWeight.setText(row.weightLabel);
+
+        // Results arrive via a posted callback, so this never notifies mid-layout
+        if (pos >= items.size() - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
     }
 
     //* Get the item count */
@@ -71,6 +204,68 @@ public class WeightsAdapter extends RecyclerView.Adapter<WeightsAdapter.VH> {
         return items.size();
     }
 
+    //* Get the stable id of a row */
+    @Override
+    public long getItemId(int pos) {
+        return items.get(pos).data.id;
+    }
+
+    //* Diff callback keyed on the row id */
+    private static final class RowDiff extends DiffUtil.Callback {
+        private final List<Row> oldItems, newItems;
+
+        RowDiff(List<Row> oldItems, List<Row> newItems) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPos, int newPos) {
+            return oldItems.get(oldPos).data.id == newItems.get(newPos).data.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPos, int newPos) {
+            WeightsRepository.WeightDTO a = oldItems.get(oldPos).data;
+            WeightsRepository.WeightDTO b = newItems.get(newPos).data;
+            return a.weightLb == b.weightLb && a.epochDay == b.epochDay;
+        }
+    }
+
+    //* A weight entry with its display labels */
+    static final class Row {
+        final WeightsRepository.WeightDTO data;
+        final String dateLabel, weightLabel;
+
+        Row(WeightsRepository.WeightDTO data, String dateLabel, String weightLabel) {
+            this.data = data;
+            this.dateLabel = dateLabel;
+            this.weightLabel = weightLabel;
+        }
+
+        static Row of(WeightsRepository.WeightDTO data) {
+            return new Row(data, WeightFormat.formatDate(data.epochDay), WeightFormat.formatWeightLb(data.weightLb));
+        }
+
+        static List<Row> of(List<WeightsRepository.WeightDTO> page) {
+            List<Row> rows = new ArrayList<>(page.size());
+            for (WeightsRepository.WeightDTO data : page) {
+                rows.add(of(data));
+            }
+            return rows;
+        }
+    }
+
     //* View holder */
     static class VH extends RecyclerView.ViewHolder {
         final TextView tvDate, tvWeight;
@@ -0,0 +1,110 @@
+package com.example.kc_weight_tracker.data;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataVersionTracker is a class that counts committed writes per table and user.
+ * Repositories call {@link #bump} after each write commits; screens remember the
+ * {@link #version} their data was loaded at and skip the reload while it is
+ * unchanged, or {@link #observe} to hear about changes.
+ * <p>
+ * Versions come from one process-wide counter, so they never repeat and the
+ * highest version across several tables changes whenever any of them is
+ * written. They live in memory only; a new process starts every screen fresh.
+ */
+public final class DataVersionTracker {
+    private DataVersionTracker() {
+    }
+
+    /**
+     * Table is an enum of the tracked tables, each covering the derived data
+     * that changes with it (e.g. WEIGHTS covers the summary and rollups).
+     */
+    public enum Table {
+        USERS, WEIGHTS, GOALS
+    }
+
+    /**
+     * Observer is a class that hears about committed writes on the main thread.
+     */
+    public interface Observer {
+        void onChanged(Table table, long userId);
+    }
+
+    private static final AtomicLong COUNTER = new AtomicLong();
+    private static final Map<Table, ConcurrentHashMap<Long, Long>> VERSIONS = new EnumMap<>(Table.class);
+    private static final CopyOnWriteArrayList<Registration> OBSERVERS = new CopyOnWriteArrayList<>();
+
+    static {
+        for (Table table : Table.values()) {
+            VERSIONS.put(table, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Record a committed write to a user's rows. Call after the transaction ends.
+     *
+     * @param table  the table that was written
+     * @param userId the id of the user whose rows changed
+     */
+    public static void bump(Table table, long userId) {
+        VERSIONS.get(table).put(userId, COUNTER.incrementAndGet());
+        for (Registration r : OBSERVERS) {
+            DatabaseExecutor.postToMain(r.owner, () -> r.observer.onChanged(table, userId));
+        }
+    }
+
+    /**
+     * Get the current version of a user's rows in one or more tables.
+     * Read it before starting a load and keep it with the loaded data.
+     *
+     * @param userId the id of the user
+     * @param tables the tables the data depends on
+     * @return the highest version across the tables, 0 if none has been written in this process
+     */
+    public static long version(long userId, Table... tables) {
+        long version = 0;
+        for (Table table : tables) {
+            Long v = VERSIONS.get(table).get(userId);
+            if (v != null && v > version) {
+                version = v;
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Hear about committed writes until the owner is destroyed. Call on the main thread.
+     *
+     * @param owner    the lifecycle that scopes the observer
+     * @param observer the observer, called on the main thread
+     */
+    public static void observe(LifecycleOwner owner, Observer observer) {
+        Registration r = new Registration(owner, observer);
+        OBSERVERS.add(r);
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                OBSERVERS.remove(r);
+            }
+        });
+    }
+
+    private static final class Registration {
+        final LifecycleOwner owner;
+        final Observer observer;
+
+        Registration(LifecycleOwner owner, Observer observer) {
+            this.owner = owner;
+            this.observer = observer;
+        }
+    }
+}
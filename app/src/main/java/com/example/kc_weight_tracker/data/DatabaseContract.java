@@ -10,7 +10,7 @@ public final class DatabaseContract {
 
     /// the name of the database
     public static final String DB_NAME = "kc_weight_tracker.db";
-    public static final int DB_VERSION = 2;
+    public static final int DB_VERSION = 8;
 
     /// the users table
     public static final class Users {
@@ -27,8 +27,11 @@ public final class DatabaseContract {
         public static final String TABLE = "weights";
         public static final String COL_ID = "_id";
         public static final String COL_USER_ID = "user_id";
-        public static final String COL_DATE = "date_iso";
+        public static final String COL_DATE = "epoch_day";         // INTEGER days since 1970-01-01
         public static final String COL_WEIGHT_LB = "weight_lb";
+
+        /// unique composite index: one entry per user per day, ordered by date
+        public static final String IDX_USER_DATE = "idx_weights_user_date";
     }
 
     /// the weight goals table
@@ -37,7 +40,52 @@ public final class DatabaseContract {
         public static final String COL_ID = "_id";
         public static final String COL_USER_ID = "user_id";
         public static final String COL_TARGET_LB = "target_lb";
-        public static final String COL_TARGET_DATE = "target_date_iso";
+        public static final String COL_TARGET_DATE = "target_epoch_day"; // INTEGER days since 1970-01-01
         public static final String COL_CREATED_AT = "created_at";
     }
+
+    /// per-user weight statistics, kept current by triggers on the weights table
+    public static final class WeightSummary {
+        public static final String TABLE = "weight_summary";
+        public static final String COL_USER_ID = "user_id";             // primary key
+        public static final String COL_ENTRY_COUNT = "entry_count";
+        public static final String COL_FIRST_DATE = "first_epoch_day";
+        public static final String COL_FIRST_LB = "first_weight_lb";
+        public static final String COL_LATEST_DATE = "latest_epoch_day";
+        public static final String COL_LATEST_LB = "latest_weight_lb";
+        public static final String COL_MIN_LB = "min_weight_lb";
+        public static final String COL_MAX_LB = "max_weight_lb";
+        public static final String COL_SUM_CENTI_LB = "sum_centi_lb";   // INTEGER sum in hundredths of a pound
+
+        /// triggers on the weights table that maintain this one
+        public static final String TRG_INSERT = "trg_weight_summary_insert";
+        public static final String TRG_UPDATE = "trg_weight_summary_update";
+        public static final String TRG_DELETE = "trg_weight_summary_delete";
+    }
+
+    /// the weekly and monthly rollup tables, one row per user per period, see WeightRollups
+    public static final class Rollups {
+        public static final String TABLE_WEEKLY = "weight_rollup_weekly";   // Monday-start weeks
+        public static final String TABLE_MONTHLY = "weight_rollup_monthly";
+        public static final String COL_USER_ID = "user_id";
+        public static final String COL_PERIOD_START = "period_start";      // INTEGER epoch day of the first day
+        public static final String COL_ENTRY_COUNT = "entry_count";
+        public static final String COL_SUM_CENTI_LB = "sum_centi_lb";      // INTEGER sum in hundredths of a pound
+        public static final String COL_MIN_LB = "min_weight_lb";
+        public static final String COL_MAX_LB = "max_weight_lb";
+        /// least-squares sums over (epoch day, hundredths of a pound), see GoalProjection.Sums
+        public static final String COL_SUM_DAY = "sum_epoch_day";
+        public static final String COL_SUM_DAY_SQ = "sum_epoch_day_sq";
+        public static final String COL_SUM_DAY_CENTI_LB = "sum_epoch_day_centi_lb";
+    }
+
+    /// the smoothed trend as of each weight entry, one row per entry, see WeightTrends
+    public static final class Trends {
+        public static final String TABLE = "weight_trend";
+        public static final String COL_USER_ID = "user_id";
+        public static final String COL_DATE = "epoch_day";                 // INTEGER epoch day of the entry
+        public static final String COL_EWMA_LB = "ewma_lb";                // exponentially weighted average
+        public static final String COL_AVG_SHORT_LB = "avg_7d_lb";         // mean of the last 7 days' entries
+        public static final String COL_AVG_LONG_LB = "avg_30d_lb";         // mean of the last 30 days' entries
+    }
 }
@@ -0,0 +1,188 @@
+package com.example.kc_weight_tracker.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DatabaseExecutor runs repository work off the main thread.
+ * Writes go through a single writer thread, which matches SQLite's one-writer
+ * model and keeps them ordered. Reads run on a small fixed pool so they can
+ * overlap with each other and, under WAL, with the writer.
+ * Results are posted back to the main thread and dropped if the owner has
+ * been destroyed in the meantime. Failures go to an {@link ErrorCallback} the
+ * same way, or are logged and the callback dropped if there is none, so a
+ * repository exception never crashes the main thread.
+ * <p>
+ * The queues are unbounded on purpose. Work is queued one task per user
+ * action or screen load, so their depth follows the user rather than a
+ * producer loop, and rejecting a queued write would lose the user's data.
+ * Writes queued behind a long job, such as an import, wait for it.
+ */
+public final class DatabaseExecutor {
+    private DatabaseExecutor() {
+    }
+
+    /**
+     * Callback is a class that receives the result of async repository work
+     * on the main thread.
+     *
+     * @param <T> the result type
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * ErrorCallback is a class that receives the failure of async repository
+     * work on the main thread.
+     */
+    public interface ErrorCallback {
+        void onError(Exception error);
+    }
+
+    private static final String TAG = "DatabaseExecutor";
+
+    /// reader threads, kept at or below the WAL connection pool size
+    private static final int READER_THREADS =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final ExecutorService WRITER = newPool("db-writer", 1);
+    private static final ExecutorService READERS = newPool("db-reader", READER_THREADS);
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    /**
+     * Run a read on the reader pool
+     *
+     * @param owner    the lifecycle the result is delivered to, or null to always deliver
+     * @param work     the read to run
+     * @param callback the callback for the result, or null to ignore it
+     * @return the future of the submitted work
+     */
+    public static <T> Future<?> read(@Nullable LifecycleOwner owner, Callable<T> work,
+            @Nullable Callback<T> callback) {
+        return submit(READERS, owner, work, callback, null);
+    }
+
+    /**
+     * Run a read on the reader pool, reporting a failure instead of logging it
+     *
+     * @param owner    the lifecycle the result or failure is delivered to, or null to always deliver
+     * @param work     the read to run
+     * @param callback the callback for the result, or null to ignore it
+     * @param onError  the callback for the failure
+     * @return the future of the submitted work
+     */
+    public static <T> Future<?> read(@Nullable LifecycleOwner owner, Callable<T> work,
+            @Nullable Callback<T> callback, ErrorCallback onError) {
+        return submit(READERS, owner, work, callback, onError);
+    }
+
+    /**
+     * Run a write on the single writer thread
+     *
+     * @param owner    the lifecycle the result is delivered to, or null to always deliver
+     * @param work     the write to run
+     * @param callback the callback for the result, or null to ignore it
+     * @return the future of the submitted work
+     */
+    public static <T> Future<?> write(@Nullable LifecycleOwner owner, Callable<T> work,
+            @Nullable Callback<T> callback) {
+        return submit(WRITER, owner, work, callback, null);
+    }
+
+    /**
+     * Run a write on the single writer thread, reporting a failure instead of logging it
+     *
+     * @param owner    the lifecycle the result or failure is delivered to, or null to always deliver
+     * @param work     the write to run
+     * @param callback the callback for the result, or null to ignore it
+     * @param onError  the callback for the failure
+     * @return the future of the submitted work
+     */
+    public static <T> Future<?> write(@Nullable LifecycleOwner owner, Callable<T> work,
+            @Nullable Callback<T> callback, ErrorCallback onError) {
+        return submit(WRITER, owner, work, callback, onError);
+    }
+
+    /**
+     * Get the reader pool, for work that reports progress on its own
+     *
+     * @return the reader executor
+     */
+    public static ExecutorService readers() {
+        return READERS;
+    }
+
+    /**
+     * Get the writer thread, for work that reports progress on its own
+     *
+     * @return the writer executor
+     */
+    public static ExecutorService writer() {
+        return WRITER;
+    }
+
+    /**
+     * Post a runnable to the main thread if the owner is still alive
+     *
+     * @param owner the lifecycle to check, or null to always run
+     * @param r     the runnable
+     */
+    public static void postToMain(@Nullable LifecycleOwner owner, Runnable r) {
+        MAIN.post(() -> {
+            if (isAlive(owner)) {
+                r.run();
+            }
+        });
+    }
+
+    private static <T> Future<?> submit(ExecutorService executor, @Nullable LifecycleOwner owner,
+            Callable<T> work, @Nullable Callback<T> callback, @Nullable ErrorCallback onError) {
+        return executor.submit(() -> {
+            T result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                if (onError != null) {
+                    postToMain(owner, () -> onError.onError(e));
+                } else {
+                    // Nobody handles it, so log it and drop the callback rather than crash the UI
+                    Log.e(TAG, "Database work failed", e);
+                }
+                return;
+            }
+            if (callback != null) {
+                postToMain(owner, () -> callback.onResult(result));
+            }
+        });
+    }
+
+    private static boolean isAlive(@Nullable LifecycleOwner owner) {
+        return owner == null || owner.getLifecycle().getCurrentState() != Lifecycle.State.DESTROYED;
+    }
+
+    private static ExecutorService newPool(String name, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), factory);
+    }
+}
@@ -9,17 +9,101 @@ import static com.example.kc_weight_tracker.data.DatabaseContract.*;
 /**
  * Database helper class for managing SQLite database creation and version management.
  * Handles database schema creation and upgrades for the weight tracking application.
+ * A single process-wide instance is shared by all repositories, see {@link #getInstance(Context)}.
  */
 public class DatabaseHelper extends SQLiteOpenHelper {
 
+    /// page cache per connection, negative values are KiB (about 8 MB)
+    private static final int CACHE_SIZE_KIB = 8 * 1024;
+
+    /// TEXT YYYY-MM-DD date columns from before v4, read only by migrations
+    private static final String LEGACY_WEIGHTS_DATE = "date_iso";
+    private static final String LEGACY_GOALS_TARGET_DATE = "target_date_iso";
+
+    private static DatabaseHelper instance;
+
+    /// compiled point lookups for the currently open database, see getStatementCache
+    private StatementCache statements;
+
+    /**
+     * Get the shared DatabaseHelper, creating it on first use.
+     * Repositories all go through this so the process opens the database file once.
+     *
+     * @param ctx any context, the application context is retained
+     * @return the process-wide DatabaseHelper
+     */
+    public static synchronized DatabaseHelper getInstance(Context ctx) {
+        if (instance == null) {
+            instance = new DatabaseHelper(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Close the shared DatabaseHelper, if open.
+     * A later {@link #getInstance(Context)} call opens a fresh one.
+     */
+    public static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
     /**
      * Constructor for DatabaseHelper
      * @param ctx Application context
      */
-    public DatabaseHelper(Context ctx) {
+    private DatabaseHelper(Context ctx) {
         super(ctx, DatabaseContract.DB_NAME, null, DatabaseContract.DB_VERSION);
     }
 
+    /**
+     * Get the compiled statement cache for the open database, opening it if needed.
+     * A new cache is started whenever the database has been closed and reopened.
+     *
+     * @return the cache bound to the current database
+     */
+    public synchronized StatementCache getStatementCache() {
+        SQLiteDatabase db = getWritableDatabase(); // the same instance readers get in WAL mode
+        if (statements == null || statements.getDatabase() != db) {
+            if (statements != null) {
+                statements.close();
+            }
+            statements = new StatementCache(db);
+        }
+        return statements;
+    }
+
+    /**
+     * Closes the cached statements, then the database.
+     */
+    @Override
+    public synchronized void close() {
+        if (statements != null) {
+            statements.close();
+            statements = null;
+        }
+        super.close();
+    }
+
+    /**
+     * Configures each new connection before create/upgrade/open run.
+     * Enables write-ahead logging so readers do not block behind the writer,
+     * turns on foreign keys so ON DELETE CASCADE is enforced, and relaxes
+     * fsync to NORMAL, which is durable across app crashes in WAL mode.
+     *
+     * @param db SQLite database instance
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.enableWriteAheadLogging();
+        db.setForeignKeyConstraintsEnabled(true);
+        db.execSQL("PRAGMA synchronous = NORMAL");
+        db.execSQL("PRAGMA cache_size = -" + CACHE_SIZE_KIB);
+    }
+
     /**
      * Creates the database tables when the database is first created.
      * Sets up Users table for user information and Weights table for weight entries.
@@ -42,43 +126,297 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         );
 
         // Weights table
+        createWeightsTable(db, Weights.TABLE);
+        createWeightsIndex(db);
+
+        // Weight Goals table
+        createGoalsTable(db, WeightGoals.TABLE);
+
+        // Weight Summary table, maintained by triggers on Weights
+        createSummaryTable(db);
+        createSummaryTriggers(db);
+
+        // Weekly and monthly rollups, maintained by WeightsRepository writes
+        WeightRollups.createTables(db);
+
+        // Smoothed trend per entry, maintained by WeightsRepository writes
+        WeightTrends.createTable(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldV, int newV) {
+        if (oldV < 2) {
+            // Add height column to existing users table
+            db.execSQL("ALTER TABLE " + Users.TABLE + " ADD COLUMN " + Users.COL_HEIGHT_INCHES + " REAL DEFAULT 70.0");
+        }
+
+        if (oldV < 3) {
+            // Drop duplicate days (keep the most recently inserted row) so the unique index can be built.
+            // The index itself is built by the v4 rebuild below, on the converted date column.
+            db.execSQL("DELETE FROM " + Weights.TABLE + " WHERE " + Weights.COL_ID + " NOT IN (" +
+                    "SELECT MAX(" + Weights.COL_ID + ") FROM " + Weights.TABLE +
+                    " GROUP BY " + Weights.COL_USER_ID + ", " + LEGACY_WEIGHTS_DATE + ")");
+        }
+
+        if (oldV < 4) {
+            // Convert TEXT YYYY-MM-DD dates to INTEGER epoch days. SQLite cannot change a
+            // column type in place, so copy into a new table and swap it in.
+            String weightsTmp = Weights.TABLE + "_v4";
+            createWeightsTable(db, weightsTmp);
+            db.execSQL("INSERT INTO " + weightsTmp + " (" +
+                    Weights.COL_ID + ", " + Weights.COL_USER_ID + ", " + Weights.COL_DATE + ", " +
+                    Weights.COL_WEIGHT_LB + ") SELECT " +
+                    Weights.COL_ID + ", " + Weights.COL_USER_ID + ", " +
+                    DateCodec.sqlIsoToEpochDay(LEGACY_WEIGHTS_DATE) + ", " + Weights.COL_WEIGHT_LB +
+                    " FROM " + Weights.TABLE +
+                    " WHERE " + DateCodec.sqlIsoToEpochDay(LEGACY_WEIGHTS_DATE) + " IS NOT NULL");
+            db.execSQL("DROP TABLE " + Weights.TABLE);
+            db.execSQL("ALTER TABLE " + weightsTmp + " RENAME TO " + Weights.TABLE);
+            createWeightsIndex(db);
+
+            String goalsTmp = WeightGoals.TABLE + "_v4";
+            createGoalsTable(db, goalsTmp);
+            db.execSQL("INSERT INTO " + goalsTmp + " (" +
+                    WeightGoals.COL_ID + ", " + WeightGoals.COL_USER_ID + ", " + WeightGoals.COL_TARGET_LB + ", " +
+                    WeightGoals.COL_TARGET_DATE + ", " + WeightGoals.COL_CREATED_AT + ") SELECT " +
+                    WeightGoals.COL_ID + ", " + WeightGoals.COL_USER_ID + ", " + WeightGoals.COL_TARGET_LB + ", " +
+                    DateCodec.sqlIsoToEpochDay(LEGACY_GOALS_TARGET_DATE) + ", " + WeightGoals.COL_CREATED_AT +
+                    " FROM " + WeightGoals.TABLE +
+                    " WHERE " + DateCodec.sqlIsoToEpochDay(LEGACY_GOALS_TARGET_DATE) + " IS NOT NULL");
+            db.execSQL("DROP TABLE " + WeightGoals.TABLE);
+            db.execSQL("ALTER TABLE " + goalsTmp + " RENAME TO " + WeightGoals.TABLE);
+        }
+
+        if (oldV < 5) {
+            // Add the trigger-maintained summary and backfill it from existing entries
+            createSummaryTable(db);
+            createSummaryTriggers(db);
+            rebuildSummary(db);
+        }
+
+        if (oldV < 6) {
+            // Add the weekly and monthly rollups and backfill them from existing entries
+            WeightRollups.createTables(db);
+            WeightRollups.rebuild(db);
+        }
+
+        if (oldV < 7) {
+            // Add the smoothed trend and backfill it from existing entries
+            WeightTrends.createTable(db);
+            WeightTrends.rebuild(db);
+        }
+
+        if (oldV >= 6 && oldV < 8) {
+            // Add the least-squares sums to existing rollups and backfill them;
+            // rollups created by the v6 step above already have them
+            WeightRollups.addRegressionColumns(db);
+            WeightRollups.rebuild(db);
+        }
+        
+        // For simplicity, recreate tables for major changes
+        if (oldV < 1) {
+            db.execSQL("DROP TABLE IF EXISTS " + Weights.TABLE);
+            db.execSQL("DROP TABLE IF EXISTS " + Users.TABLE);
+            db.execSQL("DROP TABLE IF EXISTS " + WeightGoals.TABLE);
+            db.execSQL("DROP TABLE IF EXISTS " + WeightSummary.TABLE);
+            db.execSQL("DROP TABLE IF EXISTS " + Rollups.TABLE_WEEKLY);
+            db.execSQL("DROP TABLE IF EXISTS " + Rollups.TABLE_MONTHLY);
+            db.execSQL("DROP TABLE IF EXISTS " + Trends.TABLE);
+            onCreate(db);
+        }
+    }
+
+    /**
+     * Creates a weights table.
+     * Stores: weight ID, user ID, date (epoch day), weight value
+     *
+     * @param db    SQLite database instance
+     * @param table the table name, so migrations can build a copy
+     */
+    private static void createWeightsTable(SQLiteDatabase db, String table) {
         db.execSQL(
-                "CREATE TABLE " + Weights.TABLE + " (" +
+                "CREATE TABLE " + table + " (" +
                         Weights.COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
                         Weights.COL_USER_ID + " INTEGER NOT NULL, " +
-                        Weights.COL_DATE + " TEXT NOT NULL, " +
+                        Weights.COL_DATE + " INTEGER NOT NULL, " +
                         Weights.COL_WEIGHT_LB + " REAL NOT NULL, " +
                         "FOREIGN KEY(" + Weights.COL_USER_ID + ") REFERENCES " +
                         Users.TABLE + "(" + Users.COL_ID + ") ON DELETE CASCADE" +
                         ")"
         );
+    }
 
-        // Weight Goals table
+    /**
+     * Creates a weight goals table.
+     * Stores: goal ID, user ID (one goal per user), target weight, target date (epoch day)
+     *
+     * @param db    SQLite database instance
+     * @param table the table name, so migrations can build a copy
+     */
+    private static void createGoalsTable(SQLiteDatabase db, String table) {
         db.execSQL(
-                "CREATE TABLE IF NOT EXISTS " + WeightGoals.TABLE + " (" +
+                "CREATE TABLE IF NOT EXISTS " + table + " (" +
                         WeightGoals.COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
                         WeightGoals.COL_USER_ID + " INTEGER NOT NULL UNIQUE, " +  // enforce 1 goal/user
                         WeightGoals.COL_TARGET_LB + " REAL NOT NULL, " +
-                        WeightGoals.COL_TARGET_DATE + " TEXT NOT NULL, " +        // YYYY-MM-DD
+                        WeightGoals.COL_TARGET_DATE + " INTEGER NOT NULL, " +     // epoch day
                         WeightGoals.COL_CREATED_AT + " INTEGER NOT NULL, " +
                         "FOREIGN KEY(" + WeightGoals.COL_USER_ID + ") REFERENCES " +
                         Users.TABLE + "(" + Users.COL_ID + ") ON DELETE CASCADE)"
         );
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldV, int newV) {
-        if (oldV < 2) {
-            // Add height column to existing users table
-            db.execSQL("ALTER TABLE " + Users.TABLE + " ADD COLUMN " + Users.COL_HEIGHT_INCHES + " REAL DEFAULT 70.0");
-        }
-        
-        // For simplicity, recreate tables for major changes
-        if (oldV < 1) {
-            db.execSQL("DROP TABLE IF EXISTS " + Weights.TABLE);
-            db.execSQL("DROP TABLE IF EXISTS " + Users.TABLE);
-            db.execSQL("DROP TABLE IF EXISTS " + WeightGoals.TABLE);
-            onCreate(db);
-        }
+    /**
+     * Creates the unique (user_id, date) index on the weights table.
+     * Every weights query filters by user and most sort by date, so this index
+     * serves them without a table scan or sort, and enforces one entry per day.
+     *
+     * @param db SQLite database instance
+     */
+    private static void createWeightsIndex(SQLiteDatabase db) {
+        db.execSQL(
+                "CREATE UNIQUE INDEX IF NOT EXISTS " + Weights.IDX_USER_DATE + " ON " + Weights.TABLE + " (" +
+                        Weights.COL_USER_ID + ", " + Weights.COL_DATE + ")"
+        );
+    }
+
+    /**
+     * Creates the weight summary table, one row per user with at least one entry.
+     * Stores: entry count, first and latest date and weight, min, max and the sum
+     * of all weights in hundredths of a pound, an INTEGER so it never drifts as
+     * entries are added and removed.
+     *
+     * @param db SQLite database instance
+     */
+    private static void createSummaryTable(SQLiteDatabase db) {
+        db.execSQL(
+                "CREATE TABLE IF NOT EXISTS " + WeightSummary.TABLE + " (" +
+                        WeightSummary.COL_USER_ID + " INTEGER PRIMARY KEY, " +
+                        WeightSummary.COL_ENTRY_COUNT + " INTEGER NOT NULL, " +
+                        WeightSummary.COL_FIRST_DATE + " INTEGER NOT NULL, " +
+                        WeightSummary.COL_FIRST_LB + " REAL NOT NULL, " +
+                        WeightSummary.COL_LATEST_DATE + " INTEGER NOT NULL, " +
+                        WeightSummary.COL_LATEST_LB + " REAL NOT NULL, " +
+                        WeightSummary.COL_MIN_LB + " REAL NOT NULL, " +
+                        WeightSummary.COL_MAX_LB + " REAL NOT NULL, " +
+                        WeightSummary.COL_SUM_CENTI_LB + " INTEGER NOT NULL, " +
+                        "FOREIGN KEY(" + WeightSummary.COL_USER_ID + ") REFERENCES " +
+                        Users.TABLE + "(" + Users.COL_ID + ") ON DELETE CASCADE)"
+        );
+    }
+
+    /**
+     * Creates the triggers that keep the weight summary in step with the weights table.
+     * Adding an entry folds it into the user's row. Removing one adjusts the count
+     * and sum, and only re-reads the user's entries for a field the removed entry
+     * defined (its first/latest date or min/max weight), via the (user_id, date) index.
+     * An update is a removal of the old row followed by an addition of the new one.
+     *
+     * @param db SQLite database instance
+     */
+    private static void createSummaryTriggers(SQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + WeightSummary.TRG_INSERT +
+                " AFTER INSERT ON " + Weights.TABLE +
+                " BEGIN " + summaryAddSql("NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + WeightSummary.TRG_UPDATE +
+                " AFTER UPDATE OF " + Weights.COL_USER_ID + ", " + Weights.COL_DATE + ", " +
+                Weights.COL_WEIGHT_LB + " ON " + Weights.TABLE +
+                " BEGIN " + summaryRemoveSql("OLD") + summaryAddSql("NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + WeightSummary.TRG_DELETE +
+                " AFTER DELETE ON " + Weights.TABLE +
+                " BEGIN " + summaryRemoveSql("OLD") + " END");
+    }
+
+    /**
+     * Trigger statements that fold a weights row into its user's summary
+     *
+     * @param row NEW or OLD
+     */
+    private static String summaryAddSql(String row) {
+        String day = row + "." + Weights.COL_DATE;
+        String lb = row + "." + Weights.COL_WEIGHT_LB;
+        // Seed an empty row for the user's first entry, then fold the entry in
+        return "INSERT OR IGNORE INTO " + WeightSummary.TABLE + " VALUES (" +
+                row + "." + Weights.COL_USER_ID + ", 0, " +
+                day + ", " + lb + ", " + day + ", " + lb + ", " + lb + ", " + lb + ", 0); " +
+                "UPDATE " + WeightSummary.TABLE + " SET " +
+                WeightSummary.COL_ENTRY_COUNT + " = " + WeightSummary.COL_ENTRY_COUNT + " + 1, " +
+                WeightSummary.COL_SUM_CENTI_LB + " = " + WeightSummary.COL_SUM_CENTI_LB + " + " + centiLbSql(lb) + ", " +
+                WeightSummary.COL_MIN_LB + " = MIN(" + WeightSummary.COL_MIN_LB + ", " + lb + "), " +
+                WeightSummary.COL_MAX_LB + " = MAX(" + WeightSummary.COL_MAX_LB + ", " + lb + "), " +
+                WeightSummary.COL_FIRST_LB + " = CASE WHEN " + day + " <= " + WeightSummary.COL_FIRST_DATE +
+                " THEN " + lb + " ELSE " + WeightSummary.COL_FIRST_LB + " END, " +
+                WeightSummary.COL_FIRST_DATE + " = MIN(" + WeightSummary.COL_FIRST_DATE + ", " + day + "), " +
+                WeightSummary.COL_LATEST_LB + " = CASE WHEN " + day + " >= " + WeightSummary.COL_LATEST_DATE +
+                " THEN " + lb + " ELSE " + WeightSummary.COL_LATEST_LB + " END, " +
+                WeightSummary.COL_LATEST_DATE + " = MAX(" + WeightSummary.COL_LATEST_DATE + ", " + day + ")" +
+                " WHERE " + WeightSummary.COL_USER_ID + " = " + row + "." + Weights.COL_USER_ID + "; ";
+    }
+
+    /**
+     * Trigger statements that take a weights row out of its user's summary
+     *
+     * @param row NEW or OLD
+     */
+    private static String summaryRemoveSql(String row) {
+        String day = row + "." + Weights.COL_DATE;
+        String lb = row + "." + Weights.COL_WEIGHT_LB;
+        String user = WeightSummary.COL_USER_ID + " = " + row + "." + Weights.COL_USER_ID;
+        String entries = " FROM " + Weights.TABLE + " WHERE " + Weights.COL_USER_ID + " = " +
+                row + "." + Weights.COL_USER_ID;
+        // Drop the row when its last entry goes, otherwise refresh only what the entry defined
+        return "DELETE FROM " + WeightSummary.TABLE + " WHERE " + user +
+                " AND " + WeightSummary.COL_ENTRY_COUNT + " <= 1; " +
+                "UPDATE " + WeightSummary.TABLE + " SET " +
+                WeightSummary.COL_ENTRY_COUNT + " = " + WeightSummary.COL_ENTRY_COUNT + " - 1, " +
+                WeightSummary.COL_SUM_CENTI_LB + " = " + WeightSummary.COL_SUM_CENTI_LB + " - " + centiLbSql(lb) + ", " +
+                WeightSummary.COL_MIN_LB + " = CASE WHEN " + lb + " <= " + WeightSummary.COL_MIN_LB +
+                " THEN (SELECT MIN(" + Weights.COL_WEIGHT_LB + ")" + entries + ")" +
+                " ELSE " + WeightSummary.COL_MIN_LB + " END, " +
+                WeightSummary.COL_MAX_LB + " = CASE WHEN " + lb + " >= " + WeightSummary.COL_MAX_LB +
+                " THEN (SELECT MAX(" + Weights.COL_WEIGHT_LB + ")" + entries + ")" +
+                " ELSE " + WeightSummary.COL_MAX_LB + " END, " +
+                WeightSummary.COL_FIRST_LB + " = CASE WHEN " + day + " = " + WeightSummary.COL_FIRST_DATE +
+                " THEN (SELECT " + Weights.COL_WEIGHT_LB + entries +
+                " ORDER BY " + Weights.COL_DATE + " ASC LIMIT 1)" +
+                " ELSE " + WeightSummary.COL_FIRST_LB + " END, " +
+                WeightSummary.COL_FIRST_DATE + " = CASE WHEN " + day + " = " + WeightSummary.COL_FIRST_DATE +
+                " THEN (SELECT MIN(" + Weights.COL_DATE + ")" + entries + ")" +
+                " ELSE " + WeightSummary.COL_FIRST_DATE + " END, " +
+                WeightSummary.COL_LATEST_LB + " = CASE WHEN " + day + " = " + WeightSummary.COL_LATEST_DATE +
+                " THEN (SELECT " + Weights.COL_WEIGHT_LB + entries +
+                " ORDER BY " + Weights.COL_DATE + " DESC LIMIT 1)" +
+                " ELSE " + WeightSummary.COL_LATEST_LB + " END, " +
+                WeightSummary.COL_LATEST_DATE + " = CASE WHEN " + day + " = " + WeightSummary.COL_LATEST_DATE +
+                " THEN (SELECT MAX(" + Weights.COL_DATE + ")" + entries + ")" +
+                " ELSE " + WeightSummary.COL_LATEST_DATE + " END" +
+                " WHERE " + user + "; ";
+    }
+
+    /// a weight expression in whole hundredths of a pound
+    static String centiLbSql(String weightLb) {
+        return "CAST(ROUND(" + weightLb + " * 100) AS INTEGER)";
+    }
+
+    /**
+     * Recompute every user's summary from the weights table.
+     * Used to backfill on upgrade; the triggers keep it current afterwards.
+     *
+     * @param db SQLite database instance
+     */
+    static void rebuildSummary(SQLiteDatabase db) {
+        String sameUser = " FROM " + Weights.TABLE + " f WHERE f." + Weights.COL_USER_ID +
+                " = w." + Weights.COL_USER_ID + " ORDER BY f." + Weights.COL_DATE;
+        db.execSQL("DELETE FROM " + WeightSummary.TABLE);
+        db.execSQL("INSERT INTO " + WeightSummary.TABLE + " SELECT " +
+                Weights.COL_USER_ID + ", COUNT(*), " +
+                "MIN(" + Weights.COL_DATE + "), " +
+                "(SELECT f." + Weights.COL_WEIGHT_LB + sameUser + " ASC LIMIT 1), " +
+                "MAX(" + Weights.COL_DATE + "), " +
+                "(SELECT f." + Weights.COL_WEIGHT_LB + sameUser + " DESC LIMIT 1), " +
+                "MIN(" + Weights.COL_WEIGHT_LB + "), " +
+                "MAX(" + Weights.COL_WEIGHT_LB + "), " +
+                "SUM(" + centiLbSql(Weights.COL_WEIGHT_LB) + ")" +
+                " FROM " + Weights.TABLE + " w GROUP BY " + Weights.COL_USER_ID);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.example.kc_weight_tracker.data;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StatementCache is a class that keeps compiled statements for hot single-value queries.
+ * A point lookup through {@code db.query} builds the SQL, a column array and a
+ * Cursor with its CursorWindow on every call; a cached statement only binds
+ * its arguments and reads one value with simpleQueryForLong, which allocates
+ * nothing. Read REAL columns scaled to an integer in the SQL rather than as
+ * text, which would allocate a String and parse it on every call.
+ * <p>
+ * Queries should always produce exactly one row, e.g. {@code SELECT EXISTS(...)}
+ * or {@code SELECT IFNULL((SELECT ...), -1)}, since the simple query path throws
+ * when there is none. Pass SQL from a {@code static final} constant so lookups hash a string
+ * whose hash is already cached.
+ * <p>
+ * One cache belongs to one open database, see {@link DatabaseHelper#getStatementCache()},
+ * and is closed with it. A statement's bind arguments are shared, so each
+ * bind-and-read runs under that statement's lock; different queries still run
+ * in parallel on the reader connections.
+ */
+public final class StatementCache {
+    private final SQLiteDatabase db;
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
+    private boolean closed;
+
+    StatementCache(SQLiteDatabase db) {
+        this.db = db;
+    }
+
+    /// the database this cache compiles against
+    SQLiteDatabase getDatabase() {
+        return db;
+    }
+
+    /**
+     * Run a one-row query with one argument and read the first column as a long
+     *
+     * @param sql  the query
+     * @param arg1 the value for the first ?
+     * @return the value, 0 if it is NULL
+     */
+    public long queryForLong(String sql, long arg1) {
+        SQLiteStatement stmt = get(sql);
+        synchronized (stmt) {
+            stmt.bindLong(1, arg1);
+            return stmt.simpleQueryForLong();
+        }
+    }
+
+    /**
+     * Run a one-row query with two arguments and read the first column as a long
+     *
+     * @param sql  the query
+     * @param arg1 the value for the first ?
+     * @param arg2 the value for the second ?
+     * @return the value, 0 if it is NULL
+     */
+    public long queryForLong(String sql, long arg1, long arg2) {
+        SQLiteStatement stmt = get(sql);
+        synchronized (stmt) {
+            stmt.bindLong(1, arg1);
+            stmt.bindLong(2, arg2);
+            return stmt.simpleQueryForLong();
+        }
+    }
+
+    /** Get the compiled statement for a query, compiling it on first use */
+    private synchronized SQLiteStatement get(String sql) {
+        if (closed)
+            throw new IllegalStateException("StatementCache used after its database was closed");
+        SQLiteStatement stmt = statements.get(sql);
+        if (stmt == null) {
+            stmt = db.compileStatement(sql);
+            statements.put(sql, stmt);
+        }
+        return stmt;
+    }
+
+    /**
+     * Close every cached statement. Called when the database closes or is
+     * reopened; later lookups fail rather than use a stale connection.
+     */
+    synchronized void close() {
+        closed = true;
+        for (SQLiteStatement stmt : statements.values()) {
+            synchronized (stmt) {
+                stmt.close();
+            }
+        }
+        statements.clear();
+    }
+}
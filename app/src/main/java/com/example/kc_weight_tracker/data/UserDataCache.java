@@ -0,0 +1,121 @@
+package com.example.kc_weight_tracker.data;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * UserDataCache is a class that keeps the small per-user values screens read
+ * over and over: latest and first weight, height and current goal.
+ * <p>
+ * Repositories read through it with {@link #get}. Each cached value is stamped
+ * with the {@link DataVersionTracker} version of its table taken before it was
+ * loaded, and only served while that version is current, so every write that
+ * bumps a version invalidates the values derived from it, whichever repository
+ * made it. Users are kept in least-recently-used order and the oldest is
+ * dropped past {@value #MAX_USERS}.
+ */
+public final class UserDataCache {
+    private UserDataCache() {
+    }
+
+    /// users kept in memory, more than one device realistically switches between
+    static final int MAX_USERS = 8;
+
+    /**
+     * Key is an enum of the cached values and the table each one is read from.
+     */
+    public enum Key {
+        LATEST_WEIGHT(DataVersionTracker.Table.WEIGHTS),
+        FIRST_WEIGHT(DataVersionTracker.Table.WEIGHTS),
+        HEIGHT(DataVersionTracker.Table.USERS),
+        GOAL(DataVersionTracker.Table.GOALS);
+
+        final DataVersionTracker.Table table;
+
+        Key(DataVersionTracker.Table table) {
+            this.table = table;
+        }
+    }
+
+    /// one user's values and the versions they were loaded at, -1 if not loaded
+    private static final class Entry {
+        final Object[] values = new Object[Key.values().length];
+        final long[] versions = new long[Key.values().length];
+
+        Entry() {
+            Arrays.fill(versions, -1);
+        }
+    }
+
+    private static final LinkedHashMap<Long, Entry> USERS = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > MAX_USERS;
+        }
+    };
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    /**
+     * Get a user's value from memory, or load it and remember it.
+     * The loader runs outside the cache lock; null results are cached too.
+     *
+     * @param userId the id of the user
+     * @param key    the value to get
+     * @param loader reads the value from the database on a miss
+     * @return the current value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(long userId, Key key, Supplier<T> loader) {
+        long version = DataVersionTracker.version(userId, key.table);
+        int slot = key.ordinal();
+        synchronized (USERS) {
+            Entry entry = USERS.get(userId);
+            if (entry != null && entry.versions[slot] == version) {
+                HITS.incrementAndGet();
+                return (T) entry.values[slot];
+            }
+        }
+
+        MISSES.incrementAndGet();
+        T value = loader.get();
+        synchronized (USERS) {
+            Entry entry = USERS.get(userId);
+            if (entry == null) {
+                entry = new Entry();
+                USERS.put(userId, entry);
+            }
+            // Versions only grow, so never replace a value loaded after this one started.
+            // If a write landed during the load, the stamp is already stale and the next read misses.
+            if (version >= entry.versions[slot]) {
+                entry.values[slot] = value;
+                entry.versions[slot] = version;
+            }
+        }
+        return value;
+    }
+
+    /** The number of reads served from memory since start or {@link #clear()} */
+    public static long getHitCount() {
+        return HITS.get();
+    }
+
+    /** The number of reads that went to the database since start or {@link #clear()} */
+    public static long getMissCount() {
+        return MISSES.get();
+    }
+
+    /**
+     * Drop every cached value and reset the counters, e.g. on logout.
+     */
+    public static void clear() {
+        synchronized (USERS) {
+            USERS.clear();
+        }
+        HITS.set(0);
+        MISSES.set(0);
+    }
+}
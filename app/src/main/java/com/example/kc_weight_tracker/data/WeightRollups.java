@@ -0,0 +1,214 @@
+package com.example.kc_weight_tracker.data;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import java.time.LocalDate;
+
+import static com.example.kc_weight_tracker.data.DatabaseContract.Rollups;
+import static com.example.kc_weight_tracker.data.DatabaseContract.Weights;
+
+/**
+ * WeightRollups is a class that maintains the weekly and monthly rollup tables.
+ * Each rollup row holds the entry count, weight sum, min and max of one user's
+ * period, plus the least-squares sums for {@link GoalProjection}, so period
+ * views and projections read one row per period instead of every entry.
+ * Writes refresh only the periods containing the changed date, recomputed from
+ * that period's entries on the (user_id, date) index.
+ */
+public final class WeightRollups {
+    private WeightRollups() {
+    }
+
+    /**
+     * Period is an enum of the rollup granularities, each with its own table.
+     * A period is identified by the epoch day of its first day.
+     */
+    public enum Period {
+        /// Monday to Sunday weeks
+        WEEK(Rollups.TABLE_WEEKLY) {
+            @Override
+            public long start(long epochDay) {
+                // 1970-01-01 was a Thursday, so Mondays are the days where (day + 3) % 7 == 0
+                return epochDay - Math.floorMod(epochDay + 3, 7);
+            }
+
+            @Override
+            public long end(long startEpochDay) {
+                return startEpochDay + 6;
+            }
+
+            @Override
+            String startSql(String dayColumn) {
+                return dayColumn + " - (((" + dayColumn + " + 3) % 7) + 7) % 7";
+            }
+        },
+
+        /// calendar months
+        MONTH(Rollups.TABLE_MONTHLY) {
+            @Override
+            public long start(long epochDay) {
+                return LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay();
+            }
+
+            @Override
+            public long end(long startEpochDay) {
+                return LocalDate.ofEpochDay(startEpochDay).plusMonths(1).toEpochDay() - 1;
+            }
+
+            @Override
+            String startSql(String dayColumn) {
+                return "CAST(julianday(date(" + dayColumn + " * 86400, 'unixepoch', 'start of month'))" +
+                        " - 2440587.5 AS INTEGER)";
+            }
+        };
+
+        public final String table;
+
+        Period(String table) {
+            this.table = table;
+        }
+
+        /**
+         * Get the first day of the period containing a date
+         *
+         * @param epochDay the date as days since 1970-01-01
+         * @return the epoch day the period starts on
+         */
+        public abstract long start(long epochDay);
+
+        /**
+         * Get the last day of a period
+         *
+         * @param startEpochDay the epoch day the period starts on
+         * @return the epoch day the period ends on, inclusive
+         */
+        public abstract long end(long startEpochDay);
+
+        /// an SQL expression for the period start of an epoch day column
+        abstract String startSql(String dayColumn);
+    }
+
+    /**
+     * Recompute the periods containing a date for one user.
+     * Call inside the transaction that changed the user's entry for that date.
+     *
+     * @param db       SQLite database instance
+     * @param userId   the id of the user
+     * @param epochDay the date of the added, updated or deleted entry
+     */
+    public static void refresh(SQLiteDatabase db, long userId, long epochDay) {
+        for (Period period : Period.values()) {
+            refreshPeriod(db, userId, period, period.start(epochDay));
+        }
+    }
+
+    /**
+     * Recompute one period for one user, e.g. for each period a bulk write touched.
+     * Call inside the transaction that changed the user's entries.
+     *
+     * @param db     SQLite database instance
+     * @param userId the id of the user
+     * @param period the rollup granularity
+     * @param start  the first day of the period, see {@link Period#start}
+     */
+    public static void refreshPeriod(SQLiteDatabase db, long userId, Period period, long start) {
+        db.execSQL("DELETE FROM " + period.table + " WHERE " +
+                Rollups.COL_USER_ID + "=? AND " + Rollups.COL_PERIOD_START + "=?",
+                new Object[] { userId, start });
+        // No row is inserted if the period has no entries left
+        db.execSQL("INSERT INTO " + period.table + " SELECT " +
+                Weights.COL_USER_ID + ", ?, " + aggregatesSql() +
+                " FROM " + Weights.TABLE + " WHERE " + Weights.COL_USER_ID + "=? AND " +
+                Weights.COL_DATE + " BETWEEN ? AND ? GROUP BY " + Weights.COL_USER_ID,
+                new Object[] { start, userId, start, period.end(start) });
+    }
+
+    /**
+     * Recompute every user's rollups from the weights table.
+     * Used to backfill on upgrade; {@link #refresh} keeps them current afterwards.
+     *
+     * @param db SQLite database instance
+     */
+    static void rebuild(SQLiteDatabase db) {
+        for (Period period : Period.values()) {
+            String start = period.startSql(Weights.COL_DATE);
+            db.execSQL("DELETE FROM " + period.table);
+            db.execSQL("INSERT INTO " + period.table + " SELECT " +
+                    Weights.COL_USER_ID + ", " + start + ", " + aggregatesSql() +
+                    " FROM " + Weights.TABLE + " GROUP BY " + Weights.COL_USER_ID + ", " + start);
+        }
+    }
+
+    /**
+     * Recompute all of one user's rollups from their entries, e.g. after a
+     * restore replaced the whole history.
+     * Call inside the transaction that changed the user's entries.
+     *
+     * @param db     SQLite database instance
+     * @param userId the id of the user
+     */
+    public static void rebuildUser(SQLiteDatabase db, long userId) {
+        Object[] args = { userId };
+        for (Period period : Period.values()) {
+            String start = period.startSql(Weights.COL_DATE);
+            db.execSQL("DELETE FROM " + period.table + " WHERE " + Rollups.COL_USER_ID + "=?", args);
+            db.execSQL("INSERT INTO " + period.table + " SELECT " +
+                    Weights.COL_USER_ID + ", " + start + ", " + aggregatesSql() +
+                    " FROM " + Weights.TABLE + " WHERE " + Weights.COL_USER_ID + "=?" +
+                    " GROUP BY " + Weights.COL_USER_ID + ", " + start, args);
+        }
+    }
+
+    /**
+     * Creates the rollup tables.
+     * Rows are keyed and clustered by (user_id, period start), so a date range
+     * of one user's periods is a single range read.
+     *
+     * @param db SQLite database instance
+     */
+    static void createTables(SQLiteDatabase db) {
+        for (Period period : Period.values()) {
+            db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS " + period.table + " (" +
+                            Rollups.COL_USER_ID + " INTEGER NOT NULL, " +
+                            Rollups.COL_PERIOD_START + " INTEGER NOT NULL, " +   // epoch day
+                            Rollups.COL_ENTRY_COUNT + " INTEGER NOT NULL, " +
+                            Rollups.COL_SUM_CENTI_LB + " INTEGER NOT NULL, " +
+                            Rollups.COL_MIN_LB + " REAL NOT NULL, " +
+                            Rollups.COL_MAX_LB + " REAL NOT NULL, " +
+                            Rollups.COL_SUM_DAY + " INTEGER NOT NULL, " +
+                            Rollups.COL_SUM_DAY_SQ + " INTEGER NOT NULL, " +
+                            Rollups.COL_SUM_DAY_CENTI_LB + " INTEGER NOT NULL, " +
+                            "PRIMARY KEY(" + Rollups.COL_USER_ID + ", " + Rollups.COL_PERIOD_START + "), " +
+                            "FOREIGN KEY(" + Rollups.COL_USER_ID + ") REFERENCES " +
+                            DatabaseContract.Users.TABLE + "(" + DatabaseContract.Users.COL_ID + ") ON DELETE CASCADE" +
+                            ") WITHOUT ROWID"
+            );
+        }
+    }
+
+    /**
+     * Adds the least-squares columns to rollup tables created before they existed.
+     * Call {@link #rebuild} afterwards to fill them.
+     *
+     * @param db SQLite database instance
+     */
+    static void addRegressionColumns(SQLiteDatabase db) {
+        for (Period period : Period.values()) {
+            for (String column : new String[] {
+                    Rollups.COL_SUM_DAY, Rollups.COL_SUM_DAY_SQ, Rollups.COL_SUM_DAY_CENTI_LB }) {
+                db.execSQL("ALTER TABLE " + period.table + " ADD COLUMN " + column + " INTEGER NOT NULL DEFAULT 0");
+            }
+        }
+    }
+
+    /// count, sum, min, max and least-squares sums of the selected entries, in rollup column order
+    private static String aggregatesSql() {
+        String centiLb = DatabaseHelper.centiLbSql(Weights.COL_WEIGHT_LB);
+        return "COUNT(*), SUM(" + centiLb + "), " +
+                "MIN(" + Weights.COL_WEIGHT_LB + "), MAX(" + Weights.COL_WEIGHT_LB + "), " +
+                "SUM(" + Weights.COL_DATE + "), " +
+                "SUM(" + Weights.COL_DATE + " * " + Weights.COL_DATE + "), " +
+                "SUM(" + Weights.COL_DATE + " * " + centiLb + ")";
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.kc_weight_tracker.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import static com.example.kc_weight_tracker.data.DatabaseContract.Trends;
+import static com.example.kc_weight_tracker.data.DatabaseContract.Weights;
+
+/**
+ * WeightTrends is a class that maintains the smoothed trend of each user's weight.
+ * Every entry gets a trend row with an exponentially weighted average and 7 and
+ * 30 day moving averages as of that day, so screens read a stable value
+ * without rescanning the history.
+ * <p>
+ * The trend at an entry depends only on the entries up to it, so a write at a
+ * date recomputes from that date onward, seeded with the trend row before it.
+ * Appending the newest entry therefore reads at most a month of entries and
+ * writes one row; editing an old entry rewrites the rows after it.
+ */
+public final class WeightTrends {
+    private WeightTrends() {
+    }
+
+    /// smoothing per day: each day moves the average 10% of the way to the weight
+    public static final double EWMA_ALPHA = 0.1;
+    /// moving average windows, in calendar days ending on the entry's day
+    public static final int SHORT_DAYS = 7;
+    public static final int LONG_DAYS = 30;
+
+    /**
+     * Calculator is a class that computes trend values one entry at a time.
+     * Entries must be given in ascending date order. It keeps the entries of the
+     * last {@value #LONG_DAYS} days in a ring, with sums in hundredths of a pound,
+     * so each step costs a bounded amount however long the history is.
+     */
+    public static final class Calculator {
+        private final int[] days = new int[LONG_DAYS];
+        private final long[] centiLb = new long[LONG_DAYS];
+        private int newest = -1; // ring index of the newest entry
+        private int count;
+        private boolean hasEwma;
+        private int ewmaDay;
+        private double ewma;
+
+        /**
+         * Start the average from a stored trend, e.g. the row before a recompute
+         *
+         * @param epochDay the day of the stored trend
+         * @param ewmaLb   its exponentially weighted average
+         */
+        public void seed(int epochDay, double ewmaLb) {
+            hasEwma = true;
+            ewmaDay = epochDay;
+            ewma = ewmaLb;
+        }
+
+        /**
+         * Add an entry to the moving average window only, for entries before a
+         * recompute point whose average is already in the seed
+         *
+         * @param epochDay the day of the entry
+         * @param weightLb the weight
+         */
+        public void prime(int epochDay, float weightLb) {
+            newest = (newest + 1) % LONG_DAYS;
+            days[newest] = epochDay;
+            centiLb[newest] = Math.round(weightLb * 100.0);
+            count = Math.min(count + 1, LONG_DAYS);
+        }
+
+        /**
+         * Add the next entry
+         *
+         * @param epochDay the day of the entry, after the previous one
+         * @param weightLb the weight
+         */
+        public void add(int epochDay, float weightLb) {
+            prime(epochDay, weightLb);
+            if (hasEwma) {
+                // Decay by the days elapsed, so a gap in logging counts as time rather than one step
+                double keep = Math.pow(1 - EWMA_ALPHA, epochDay - ewmaDay);
+                ewma = weightLb + (ewma - weightLb) * keep;
+            } else {
+                ewma = weightLb;
+                hasEwma = true;
+            }
+            ewmaDay = epochDay;
+        }
+
+        /** The exponentially weighted average as of the last entry added */
+        public double getEwma() {
+            return ewma;
+        }
+
+        /**
+         * Get the mean of the entries in the window ending on the last entry's day
+         *
+         * @param windowDays the window length in days, at most {@value #LONG_DAYS}
+         * @return the mean weight, or NaN if nothing has been added
+         */
+        public double getAverage(int windowDays) {
+            if (count == 0)
+                return Double.NaN;
+            int after = days[newest] - windowDays; // entries after this day are in the window
+            long sum = 0;
+            int n = 0;
+            for (int i = 0, at = newest; i < count && days[at] > after; i++, at = (at + LONG_DAYS - 1) % LONG_DAYS) {
+                sum += centiLb[at];
+                n++;
+            }
+            return sum / (n * 100.0);
+        }
+    }
+
+    /**
+     * Recompute a user's trend from a date onward.
+     * Call inside the transaction that changed the user's entry for that date.
+     *
+     * @param db       SQLite database instance
+     * @param userId   the id of the user
+     * @param fromDay  the earliest date that changed
+     */
+    public static void recompute(SQLiteDatabase db, long userId, long fromDay) {
+        String uid = String.valueOf(userId);
+        String from = String.valueOf(fromDay);
+        db.delete(Trends.TABLE, Trends.COL_USER_ID + "=? AND " + Trends.COL_DATE + ">=?",
+                new String[] { uid, from });
+
+        Calculator calc = new Calculator();
+        try (Cursor c = db.rawQuery(
+                "SELECT " + Trends.COL_DATE + ", " + Trends.COL_EWMA_LB + " FROM " + Trends.TABLE +
+                        " WHERE " + Trends.COL_USER_ID + "=? AND " + Trends.COL_DATE + "<?" +
+                        " ORDER BY " + Trends.COL_DATE + " DESC LIMIT 1",
+                new String[] { uid, from })) {
+            if (c.moveToFirst()) {
+                calc.seed(c.getInt(0), c.getDouble(1));
+            }
+        }
+
+        SQLiteStatement insert = compileInsert(db);
+        try (Cursor c = db.rawQuery(
+                "SELECT " + Weights.COL_DATE + ", " + Weights.COL_WEIGHT_LB + " FROM " + Weights.TABLE +
+                        " WHERE " + Weights.COL_USER_ID + "=? AND " + Weights.COL_DATE + ">?" +
+                        " ORDER BY " + Weights.COL_DATE + " ASC",
+                new String[] { uid, String.valueOf(fromDay - LONG_DAYS) })) {
+            insert.bindLong(1, userId);
+            while (c.moveToNext()) {
+                int day = c.getInt(0);
+                if (day < fromDay) {
+                    calc.prime(day, c.getFloat(1));
+                } else {
+                    calc.add(day, c.getFloat(1));
+                    write(insert, day, calc);
+                }
+            }
+        } finally {
+            insert.close();
+        }
+    }
+
+    /**
+     * Recompute one user's whole trend, e.g. after their entries were replaced.
+     * Call inside the transaction that replaced them.
+     *
+     * @param db     SQLite database instance
+     * @param userId the id of the user
+     */
+    public static void rebuildUser(SQLiteDatabase db, long userId) {
+        recompute(db, userId, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Recompute every user's trend from the weights table.
+     * Used to backfill on upgrade; {@link #recompute} keeps it current afterwards.
+     *
+     * @param db SQLite database instance
+     */
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + Trends.TABLE);
+        SQLiteStatement insert = compileInsert(db);
+        try (Cursor c = db.rawQuery(
+                "SELECT " + Weights.COL_USER_ID + ", " + Weights.COL_DATE + ", " + Weights.COL_WEIGHT_LB +
+                        " FROM " + Weights.TABLE +
+                        " ORDER BY " + Weights.COL_USER_ID + ", " + Weights.COL_DATE, null)) {
+            Calculator calc = null;
+            long userId = 0;
+            while (c.moveToNext()) {
+                if (calc == null || c.getLong(0) != userId) {
+                    userId = c.getLong(0);
+                    calc = new Calculator();
+                    insert.bindLong(1, userId);
+                }
+                int day = c.getInt(1);
+                calc.add(day, c.getFloat(2));
+                write(insert, day, calc);
+            }
+        } finally {
+            insert.close();
+        }
+    }
+
+    /**
+     * Creates the trend table, one row per weight entry keyed like the entry.
+     *
+     * @param db SQLite database instance
+     */
+    static void createTable(SQLiteDatabase db) {
+        db.execSQL(
+                "CREATE TABLE IF NOT EXISTS " + Trends.TABLE + " (" +
+                        Trends.COL_USER_ID + " INTEGER NOT NULL, " +
+                        Trends.COL_DATE + " INTEGER NOT NULL, " +
+                        Trends.COL_EWMA_LB + " REAL NOT NULL, " +
+                        Trends.COL_AVG_SHORT_LB + " REAL NOT NULL, " +
+                        Trends.COL_AVG_LONG_LB + " REAL NOT NULL, " +
+                        "PRIMARY KEY(" + Trends.COL_USER_ID + ", " + Trends.COL_DATE + "), " +
+                        "FOREIGN KEY(" + Trends.COL_USER_ID + ") REFERENCES " +
+                        DatabaseContract.Users.TABLE + "(" + DatabaseContract.Users.COL_ID + ") ON DELETE CASCADE" +
+                        ") WITHOUT ROWID"
+        );
+    }
+
+    private static SQLiteStatement compileInsert(SQLiteDatabase db) {
+        return db.compileStatement("INSERT INTO " + Trends.TABLE + " (" +
+                Trends.COL_USER_ID + ", " + Trends.COL_DATE + ", " + Trends.COL_EWMA_LB + ", " +
+                Trends.COL_AVG_SHORT_LB + ", " + Trends.COL_AVG_LONG_LB + ") VALUES (?, ?, ?, ?, ?)");
+    }
+
+    private static void write(SQLiteStatement insert, int day, Calculator calc) {
+        insert.bindLong(2, day);
+        insert.bindDouble(3, calc.getEwma());
+        insert.bindDouble(4, calc.getAverage(SHORT_DAYS));
+        insert.bindDouble(5, calc.getAverage(LONG_DAYS));
+        insert.executeInsert();
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.kc_weight_tracker.repository;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.kc_weight_tracker.data.BackupCodec;
+import com.example.kc_weight_tracker.data.DataVersionTracker;
+import com.example.kc_weight_tracker.data.DatabaseExecutor;
+import com.example.kc_weight_tracker.data.DatabaseHelper;
+import com.example.kc_weight_tracker.data.WeightRollups;
+import com.example.kc_weight_tracker.data.WeightTrends;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Future;
+
+import static com.example.kc_weight_tracker.data.DatabaseContract.Users;
+import static com.example.kc_weight_tracker.data.DatabaseContract.WeightGoals;
+import static com.example.kc_weight_tracker.data.DatabaseContract.Weights;
+
+/**
+ * BackupRepository is a class that writes and restores a user's binary backup,
+ * in the format described by {@link BackupCodec}.
+ * A backup holds the height, goal and full weight history, and a restore
+ * replaces all three. It is meant for moving a user between devices; CSV
+ * export is the human-readable alternative.
+ */
+public class BackupRepository {
+    private final DatabaseHelper helper;
+    private final ContentResolver resolver;
+
+    /**
+     * Constructor for BackupRepository
+     *
+     * @param ctx the context of the application
+     */
+    public BackupRepository(Context ctx) {
+        this.helper = DatabaseHelper.getInstance(ctx);
+        this.resolver = ctx.getApplicationContext().getContentResolver();
+    }
+
+    /**
+     * Result is a class that represents the outcome of a backup or restore.
+     */
+    public static final class Result {
+        public final int entries;
+        @Nullable
+        public final Exception error;
+
+        /**
+         * Constructor for Result
+         *
+         * @param entries the number of weight entries written or restored
+         * @param error   the file, format or database failure, or null on success
+         */
+        public Result(int entries, @Nullable Exception error) {
+            this.entries = entries;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Write a user's backup.
+     * Entries are read through a cursor and encoded one at a time.
+     *
+     * @param userId the id of the user
+     * @param out    the stream to write to, not closed by this method
+     * @return the number of weight entries written
+     * @throws IOException if writing fails
+     */
+    public int writeBackup(long userId, OutputStream out) throws IOException {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        String[] args = { String.valueOf(userId) };
+        BackupCodec.Writer writer = new BackupCodec.Writer(out);
+
+        BackupCodec.Header header = readHeader(db, args);
+        try (Cursor c = db.rawQuery(
+                "SELECT " + Weights.COL_DATE + ", " + Weights.COL_WEIGHT_LB +
+                        " FROM " + Weights.TABLE +
+                        " WHERE " + Weights.COL_USER_ID + "=?" +
+                        " ORDER BY " + Weights.COL_DATE + " ASC",
+                args)) {
+            // The count comes from the same cursor, so it always matches the entries written
+            int count = c.getCount();
+            writer.writeHeader(header, count);
+            while (c.moveToNext()) {
+                writer.writeEntry(c.getLong(0), c.getFloat(1));
+            }
+            writer.finish();
+            return count;
+        }
+    }
+
+    /**
+     * Restore a user's backup, replacing their height, goal and weight history.
+     * Entries are decoded one at a time into a compiled INSERT inside a single
+     * transaction, and the checksum is verified before it commits, so a
+     * truncated or corrupt backup leaves the user's data untouched. The
+     * summary is kept by its triggers and the rollups are rebuilt once at the end.
+     *
+     * @param userId the id of the user to restore into
+     * @param in     the backup, not closed by this method
+     * @return the number of weight entries restored
+     * @throws IOException if the backup cannot be read, is truncated or is corrupt;
+     *                     like a database failure, this rolls back the whole restore
+     */
+    public int restoreBackup(long userId, InputStream in) throws IOException {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        String[] args = { String.valueOf(userId) };
+        BackupCodec.Reader reader = new BackupCodec.Reader(in);
+        int restored = 0;
+
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT OR REPLACE INTO " + Weights.TABLE + " (" +
+                        Weights.COL_USER_ID + ", " +
+                        Weights.COL_DATE + ", " +
+                        Weights.COL_WEIGHT_LB + ") VALUES (?, ?, ?)");
+        db.beginTransaction();
+        try {
+            BackupCodec.Header header = reader.readHeader();
+            writeHeader(db, userId, header, args);
+
+            db.delete(Weights.TABLE, Weights.COL_USER_ID + "=?", args);
+            insert.bindLong(1, userId);
+            while (reader.next()) {
+                insert.bindLong(2, reader.getEpochDay());
+                insert.bindDouble(3, reader.getWeightLb());
+                insert.executeInsert();
+                restored++;
+            }
+
+            WeightRollups.rebuildUser(db, userId);
+            WeightTrends.rebuildUser(db, userId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+
+        for (DataVersionTracker.Table table : DataVersionTracker.Table.values()) {
+            DataVersionTracker.bump(table, userId);
+        }
+        return restored;
+    }
+
+    /**
+     * Write a user's backup to a Storage Access Framework document, on the reader pool.
+     * The result is delivered on the main thread. A backup that fails for any
+     * reason, including a database error, deletes the partial document.
+     *
+     * @param owner    the lifecycle the result is delivered to
+     * @param userId   the id of the user
+     * @param uri      the document to write, e.g. from ActivityResultContracts.CreateDocument
+     * @param callback the callback for the result
+     * @return the future of the submitted backup
+     * @see #writeBackup
+     */
+    public Future<?> writeBackupAsync(LifecycleOwner owner, long userId, Uri uri,
+            DatabaseExecutor.Callback<Result> callback) {
+        return DatabaseExecutor.readers().submit(() -> {
+            Result result;
+            try (OutputStream os = resolver.openOutputStream(uri, "wt")) {
+                if (os == null)
+                    throw new IOException("Cannot open " + uri);
+                result = new Result(writeBackup(userId, os), null);
+            } catch (IOException | RuntimeException e) {
+                result = new Result(0, e);
+            }
+
+            if (!result.isSuccess()) {
+                deleteQuietly(uri);
+            }
+            Result done = result;
+            DatabaseExecutor.postToMain(owner, () -> callback.onResult(done));
+        });
+    }
+
+    /**
+     * Restore a user's backup from a Storage Access Framework document, on the writer thread.
+     * The result is delivered on the main thread, with the error set if the
+     * document, the backup or the database failed; the user's data is then unchanged.
+     *
+     * @param owner    the lifecycle the result is delivered to
+     * @param userId   the id of the user to restore into
+     * @param uri      the document to read, e.g. from ActivityResultContracts.OpenDocument
+     * @param callback the callback for the result
+     * @return the future of the submitted restore
+     * @see #restoreBackup
+     */
+    public Future<?> restoreBackupAsync(LifecycleOwner owner, long userId, Uri uri,
+            DatabaseExecutor.Callback<Result> callback) {
+        return DatabaseExecutor.writer().submit(() -> {
+            Result result = null;
+            try (InputStream is = resolver.openInputStream(uri)) {
+                if (is == null)
+                    throw new IOException("Cannot open " + uri);
+                result = new Result(restoreBackup(userId, is), null);
+            } catch (IOException | RuntimeException e) {
+                // A failure closing the document after the restore committed does not undo it
+                if (result == null) {
+                    result = new Result(0, e);
+                }
+            }
+
+            Result done = result;
+            DatabaseExecutor.postToMain(owner, () -> callback.onResult(done));
+        });
+    }
+
+    /** Read the user's height and goal into a backup header */
+    private static BackupCodec.Header readHeader(SQLiteDatabase db, String[] args) {
+        double height = 0; // no height set
+        try (Cursor c = db.rawQuery(
+                "SELECT " + Users.COL_HEIGHT_INCHES + " FROM " + Users.TABLE +
+                        " WHERE " + Users.COL_ID + "=?",
+                args)) {
+            if (c.moveToFirst() && !c.isNull(0)) {
+                height = c.getDouble(0);
+            }
+        }
+
+        try (Cursor c = db.rawQuery(
+                "SELECT " + WeightGoals.COL_TARGET_LB + ", " + WeightGoals.COL_TARGET_DATE + ", " +
+                        WeightGoals.COL_CREATED_AT + " FROM " + WeightGoals.TABLE +
+                        " WHERE " + WeightGoals.COL_USER_ID + "=?",
+                args)) {
+            if (c.moveToFirst()) {
+                return new BackupCodec.Header(height, true, c.getFloat(0), c.getLong(1), c.getLong(2));
+            }
+        }
+        return new BackupCodec.Header(height, false, 0, 0, 0);
+    }
+
+    /** Replace the user's height and goal with the backup's */
+    private static void writeHeader(SQLiteDatabase db, long userId, BackupCodec.Header header, String[] args) {
+        ContentValues user = new ContentValues();
+        if (header.heightInches > 0) {
+            user.put(Users.COL_HEIGHT_INCHES, header.heightInches);
+        } else {
+            user.putNull(Users.COL_HEIGHT_INCHES);
+        }
+        db.update(Users.TABLE, user, Users.COL_ID + "=?", args);
+
+        db.delete(WeightGoals.TABLE, WeightGoals.COL_USER_ID + "=?", args);
+        if (header.hasGoal) {
+            ContentValues goal = new ContentValues();
+            goal.put(WeightGoals.COL_USER_ID, userId);
+            goal.put(WeightGoals.COL_TARGET_LB, header.goalTargetLb);
+            goal.put(WeightGoals.COL_TARGET_DATE, header.goalTargetEpochDay);
+            goal.put(WeightGoals.COL_CREATED_AT, header.goalCreatedAtEpochMs);
+            db.insert(WeightGoals.TABLE, null, goal);
+        }
+    }
+
+    private void deleteQuietly(Uri uri) {
+        try {
+            DocumentsContract.deleteDocument(resolver, uri);
+        } catch (Exception ignore) {
+            // The provider may not support deletion; the partial file is left for the user
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.example.kc_weight_tracker.repository;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.provider.DocumentsContract;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.kc_weight_tracker.data.DataVersionTracker;
+import com.example.kc_weight_tracker.data.DatabaseContract;
+import com.example.kc_weight_tracker.data.DatabaseExecutor;
+import com.example.kc_weight_tracker.data.DatabaseHelper;
+import com.example.kc_weight_tracker.data.WeightCsv;
+import com.example.kc_weight_tracker.data.WeightRollups;
+import com.example.kc_weight_tracker.data.WeightTrends;
+import com.example.kc_weight_tracker.utility.WeightValidator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * CsvRepository is a class that moves a user's data in and out as CSV, in the
+ * format described by {@link WeightCsv}.
+ * Export streams rows from a cursor straight into a buffered writer, and import
+ * streams records from a reader into batched transactions, so memory stays
+ * flat however long the history is.
+ */
+public class CsvRepository {
+    /// rows between progress reports and cancellation checks
+    private static final int PROGRESS_INTERVAL = 500;
+    /// rows committed per import transaction
+    private static final int IMPORT_BATCH = 5_000;
+    /// row errors kept for display; later ones are only counted
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final DatabaseHelper helper;
+    private final ContentResolver resolver;
+
+    /**
+     * Constructor for CsvRepository
+     *
+     * @param ctx the context of the application
+     */
+    public CsvRepository(Context ctx) {
+        this.helper = DatabaseHelper.getInstance(ctx);
+        this.resolver = ctx.getApplicationContext().getContentResolver();
+    }
+
+    /**
+     * ProgressListener is a class that receives progress of a long transfer.
+     */
+    public interface ProgressListener {
+        /**
+         * @param done  the number of rows processed so far
+         * @param total the expected number of rows, or 0 if unknown
+         */
+        void onProgress(int done, int total);
+    }
+
+    /**
+     * ExportResult is a class that represents the outcome of an export.
+     */
+    public static final class ExportResult {
+        public final int rowsWritten;
+        public final boolean cancelled;
+        @Nullable
+        public final Exception error;
+
+        /**
+         * Constructor for ExportResult
+         *
+         * @param rowsWritten the number of records written, 0 unless the export finished
+         * @param cancelled   true if the export was cancelled
+         * @param error       the write or database failure, or null if the export finished or was cancelled
+         */
+        public ExportResult(int rowsWritten, boolean cancelled, @Nullable Exception error) {
+            this.rowsWritten = rowsWritten;
+            this.cancelled = cancelled;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return !cancelled && error == null;
+        }
+    }
+
+    /**
+     * RowError is a class that represents a CSV line that was not imported.
+     */
+    public static final class RowError {
+        public final int line;
+        public final String message;
+
+        /**
+         * Constructor for RowError
+         *
+         * @param line    the 1-based line number in the file
+         * @param message why the line was rejected
+         */
+        public RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
+
+    /**
+     * ImportResult is a class that represents the outcome of an import.
+     * Batches commit as they go, so a cancelled or failed import keeps the
+     * entries counted in imported, which are only those that committed.
+     */
+    public static final class ImportResult {
+        public final int imported;
+        public final int alreadyLogged;
+        public final int errorCount;
+        public final List<RowError> errors;
+        public final boolean goalImported;
+        public final boolean cancelled;
+        @Nullable
+        public final Exception error;
+
+        /**
+         * Constructor for ImportResult
+         *
+         * @param imported      the number of weight entries added and committed
+         * @param alreadyLogged the number of entries skipped because their date was already logged
+         * @param errorCount    the number of rejected lines
+         * @param errors        the first rejected lines, at most 100
+         * @param goalImported  true if the file's goal replaced the user's goal
+         * @param cancelled     true if the import was cancelled
+         * @param error         the read or database failure that stopped the import, or null
+         */
+        public ImportResult(int imported, int alreadyLogged, int errorCount, List<RowError> errors,
+                boolean goalImported, boolean cancelled, @Nullable Exception error) {
+            this.imported = imported;
+            this.alreadyLogged = alreadyLogged;
+            this.errorCount = errorCount;
+            this.errors = errors;
+            this.goalImported = goalImported;
+            this.cancelled = cancelled;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Write a user's weights, oldest first, and goal as CSV.
+     * Rows are read through a cursor and appended one at a time; nothing is
+     * collected in memory first.
+     *
+     * @param userId   the id of the user
+     * @param out      the writer to append to, not closed by this method
+     * @param progress the listener called every few hundred rows on this thread, or null
+     * @param cancel   the signal that aborts the export, or null
+     * @return the number of records written
+     * @throws IOException if writing fails
+     * @throws OperationCanceledException if the signal is cancelled
+     */
+    public int exportCsv(long userId, Writer out, @Nullable ProgressListener progress,
+            @Nullable CancellationSignal cancel) throws IOException {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        String[] args = { String.valueOf(userId) };
+        StringBuilder line = new StringBuilder(32);
+        int total = countWeights(db, userId);
+        int written = 0;
+
+        out.write(WeightCsv.HEADER);
+        out.write('\n');
+
+        try (Cursor c = db.rawQuery(
+                "SELECT " + DatabaseContract.Weights.COL_DATE + ", " + DatabaseContract.Weights.COL_WEIGHT_LB +
+                        " FROM " + DatabaseContract.Weights.TABLE +
+                        " WHERE " + DatabaseContract.Weights.COL_USER_ID + "=?" +
+                        " ORDER BY " + DatabaseContract.Weights.COL_DATE + " ASC",
+                args, cancel)) {
+            while (c.moveToNext()) {
+                WeightCsv.appendRecord(line, WeightCsv.TYPE_WEIGHT, c.getLong(0), c.getFloat(1));
+                out.append(line);
+                written++;
+
+                if (written % PROGRESS_INTERVAL == 0) {
+                    if (cancel != null)
+                        cancel.throwIfCanceled();
+                    if (progress != null)
+                        progress.onProgress(written, total);
+                }
+            }
+        }
+
+        try (Cursor c = db.rawQuery(
+                "SELECT " + DatabaseContract.WeightGoals.COL_TARGET_DATE + ", " +
+                        DatabaseContract.WeightGoals.COL_TARGET_LB +
+                        " FROM " + DatabaseContract.WeightGoals.TABLE +
+                        " WHERE " + DatabaseContract.WeightGoals.COL_USER_ID + "=?",
+                args, cancel)) {
+            if (c.moveToFirst()) {
+                WeightCsv.appendRecord(line, WeightCsv.TYPE_GOAL, c.getLong(0), c.getFloat(1));
+                out.append(line);
+                written++;
+            }
+        }
+
+        if (progress != null)
+            progress.onProgress(written, Math.max(total, written));
+        return written;
+    }
+
+    /**
+     * Export a user's data as CSV to a Storage Access Framework document, on the reader pool.
+     * Progress and the result are delivered on the main thread. A cancelled or
+     * failed export deletes the partial document.
+     *
+     * @param owner    the lifecycle the progress and result are delivered to
+     * @param userId   the id of the user
+     * @param uri      the document to write, e.g. from ActivityResultContracts.CreateDocument
+     * @param progress the listener for progress, or null
+     * @param cancel   the signal that aborts the export
+     * @param callback the callback for the result
+     * @return the future of the submitted export
+     * @see #exportCsv
+     */
+    public Future<?> exportCsvAsync(LifecycleOwner owner, long userId, Uri uri,
+            @Nullable ProgressListener progress, CancellationSignal cancel,
+            DatabaseExecutor.Callback<ExportResult> callback) {
+        ProgressListener onMain = progress == null ? null
+                : (done, total) -> DatabaseExecutor.postToMain(owner, () -> progress.onProgress(done, total));
+
+        return DatabaseExecutor.readers().submit(() -> {
+            ExportResult result;
+            try (OutputStream os = resolver.openOutputStream(uri, "wt")) {
+                if (os == null)
+                    throw new IOException("Cannot open " + uri);
+                Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER_CHARS);
+                int written = exportCsv(userId, out, onMain, cancel);
+                out.flush();
+                result = new ExportResult(written, false, null);
+            } catch (OperationCanceledException e) {
+                result = new ExportResult(0, true, null);
+            } catch (IOException | RuntimeException e) {
+                result = new ExportResult(0, false, e);
+            }
+
+            if (!result.isSuccess()) {
+                deleteQuietly(uri);
+            }
+            ExportResult done = result;
+            DatabaseExecutor.postToMain(owner, () -> callback.onResult(done));
+        });
+    }
+
+    /**
+     * Import weight entries, and the goal if present, from CSV.
+     * Records are parsed one line at a time and checked with the same rules as
+     * manual entry. Valid entries go through one compiled INSERT OR IGNORE
+     * statement in transactions of {@value #IMPORT_BATCH} rows; the unique
+     * (user_id, date) index skips dates the user has already logged, including
+     * repeats within the file. Each batch refreshes the rollup periods it touched
+     * before it commits.
+     *
+     * @param userId   the id of the user
+     * @param in       the CSV text, not closed by this method
+     * @param progress the listener called after each batch on this thread, or null
+     * @param cancel   the signal that stops the import after the current batch, or null
+     * @return the counts and the rejected lines. If reading or a write fails, the
+     *         result holds the failure, the open batch is rolled back, and the
+     *         batches already committed are kept and counted
+     */
+    public ImportResult importCsv(long userId, Reader in, @Nullable ProgressListener progress,
+            @Nullable CancellationSignal cancel) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        WeightCsv.RecordReader records = new WeightCsv.RecordReader(in);
+        List<RowError> errors = new ArrayList<>();
+        Set<Long> weeks = new HashSet<>();
+        Set<Long> months = new HashSet<>();
+        int imported = 0, alreadyLogged = 0, errorCount = 0, rows = 0, committedImports = 0;
+        boolean hasGoal = false, goalImported = false, goalCommitted = false, cancelled = false;
+        long goalEpochDay = 0;
+        float goalLb = 0;
+        Exception failure = null;
+
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT OR IGNORE INTO " + DatabaseContract.Weights.TABLE + " (" +
+                        DatabaseContract.Weights.COL_USER_ID + ", " +
+                        DatabaseContract.Weights.COL_DATE + ", " +
+                        DatabaseContract.Weights.COL_WEIGHT_LB + ") VALUES (?, ?, ?)");
+        try {
+            db.beginTransaction();
+            try {
+                insert.bindLong(1, userId);
+                while (records.next()) {
+                    rows++;
+
+                    String message = records.getError();
+                    if (message == null) {
+                        message = WeightValidator.getValidationMessage(records.getWeightLb());
+                    }
+                    if (message != null) {
+                        if (errorCount++ < MAX_REPORTED_ERRORS) {
+                            errors.add(new RowError(records.getLine(), message));
+                        }
+                    } else if (records.isGoal()) {
+                        // The last goal in the file wins, applied once at the end
+                        hasGoal = true;
+                        goalEpochDay = records.getEpochDay();
+                        goalLb = records.getWeightLb();
+                    } else {
+                        long day = records.getEpochDay();
+                        insert.bindLong(2, day);
+                        insert.bindDouble(3, records.getWeightLb());
+                        if (insert.executeInsert() > 0) {
+                            imported++;
+                            weeks.add(WeightRollups.Period.WEEK.start(day));
+                            months.add(WeightRollups.Period.MONTH.start(day));
+                        } else {
+                            alreadyLogged++;
+                        }
+                    }
+
+                    if (rows % IMPORT_BATCH == 0) {
+                        commitBatch(db, userId, weeks, months);
+                        committedImports = imported;
+                        if (progress != null)
+                            progress.onProgress(rows, 0);
+                        if (cancel != null && cancel.isCanceled()) {
+                            cancelled = true;
+                            break;
+                        }
+                    }
+                }
+
+                if (hasGoal && !cancelled) {
+                    goalImported = WeightGoalRepository.writeGoal(db, userId, goalLb, goalEpochDay) > 0;
+                }
+                refreshDerived(db, userId, weeks, months);
+                db.setTransactionSuccessful();
+            } finally {
+                // A failed commit in commitBatch leaves no transaction open
+                if (db.inTransaction()) {
+                    db.endTransaction();
+                }
+            }
+            committedImports = imported;
+            goalCommitted = goalImported;
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        } finally {
+            insert.close();
+
+            // Bump after commit, and also when the import fails after earlier batches committed
+            if (committedImports > 0) {
+                DataVersionTracker.bump(DataVersionTracker.Table.WEIGHTS, userId);
+            }
+            if (goalCommitted) {
+                DataVersionTracker.bump(DataVersionTracker.Table.GOALS, userId);
+            }
+        }
+        if (failure != null)
+            return new ImportResult(committedImports, alreadyLogged, errorCount, errors, goalCommitted, cancelled,
+                    failure);
+        if (progress != null)
+            progress.onProgress(rows, rows);
+        return new ImportResult(imported, alreadyLogged, errorCount, errors, goalImported, cancelled, null);
+    }
+
+    /**
+     * Import CSV from a Storage Access Framework document, on the writer thread.
+     * Progress and the result are delivered on the main thread.
+     *
+     * @param owner    the lifecycle the progress and result are delivered to
+     * @param userId   the id of the user
+     * @param uri      the document to read, e.g. from ActivityResultContracts.OpenDocument
+     * @param progress the listener for progress, or null
+     * @param cancel   the signal that stops the import after the current batch
+     * @param callback the callback for the result
+     * @return the future of the submitted import
+     * @see #importCsv
+     */
+    public Future<?> importCsvAsync(LifecycleOwner owner, long userId, Uri uri,
+            @Nullable ProgressListener progress, CancellationSignal cancel,
+            DatabaseExecutor.Callback<ImportResult> callback) {
+        ProgressListener onMain = progress == null ? null
+                : (done, total) -> DatabaseExecutor.postToMain(owner, () -> progress.onProgress(done, total));
+
+        return DatabaseExecutor.writer().submit(() -> {
+            ImportResult result = null;
+            try (InputStream is = resolver.openInputStream(uri)) {
+                if (is == null)
+                    throw new IOException("Cannot open " + uri);
+                Reader in = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8), BUFFER_CHARS);
+                result = importCsv(userId, in, onMain, cancel);
+            } catch (IOException | RuntimeException e) {
+                // Opening the document or the database failed before anything was imported;
+                // importCsv reports its own failures, so one closing the document is ignored
+                if (result == null) {
+                    result = new ImportResult(0, 0, 0, new ArrayList<>(), false, false, e);
+                }
+            }
+
+            ImportResult done = result;
+            DatabaseExecutor.postToMain(owner, () -> callback.onResult(done));
+        });
+    }
+
+    /** Commit the current batch and start the next one */
+    private static void commitBatch(SQLiteDatabase db, long userId, Set<Long> weeks, Set<Long> months) {
+        refreshDerived(db, userId, weeks, months);
+        db.setTransactionSuccessful();
+        db.endTransaction();
+        db.beginTransaction();
+    }
+
+    /** Refresh the rollup periods a batch touched, once each, and the trend from its earliest week */
+    private static void refreshDerived(SQLiteDatabase db, long userId, Set<Long> weeks, Set<Long> months) {
+        if (!weeks.isEmpty()) {
+            WeightTrends.recompute(db, userId, Collections.min(weeks));
+        }
+        for (long start : weeks) {
+            WeightRollups.refreshPeriod(db, userId, WeightRollups.Period.WEEK, start);
+        }
+        for (long start : months) {
+            WeightRollups.refreshPeriod(db, userId, WeightRollups.Period.MONTH, start);
+        }
+        weeks.clear();
+        months.clear();
+    }
+
+    /** Number of weight rows for the progress total, read from the summary table */
+    private static int countWeights(SQLiteDatabase db, long userId) {
+        try (Cursor c = db.rawQuery(
+                "SELECT " + DatabaseContract.WeightSummary.COL_ENTRY_COUNT +
+                        " FROM " + DatabaseContract.WeightSummary.TABLE +
+                        " WHERE " + DatabaseContract.WeightSummary.COL_USER_ID + "=?",
+                new String[] { String.valueOf(userId) })) {
+            return c.moveToFirst() ? c.getInt(0) : 0;
+        }
+    }
+
+    private void deleteQuietly(Uri uri) {
+        try {
+            DocumentsContract.deleteDocument(resolver, uri);
+        } catch (Exception ignore) {
+            // The provider may not support deletion; the partial file is left for the user
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.kc_weight_tracker.repository;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.kc_weight_tracker.data.DatabaseExecutor;
+import com.example.kc_weight_tracker.data.DatabaseHelper;
+import com.example.kc_weight_tracker.data.DateCodec;
+import com.example.kc_weight_tracker.data.GoalProjection;
+import com.example.kc_weight_tracker.utility.GoalProgress;
+
+import java.time.LocalDate;
+
+import static com.example.kc_weight_tracker.data.DatabaseContract.Trends;
+import static com.example.kc_weight_tracker.data.DatabaseContract.WeightGoals;
+import static com.example.kc_weight_tracker.data.DatabaseContract.WeightSummary;
+import static com.example.kc_weight_tracker.data.DatabaseContract.Weights;
+
+/**
+ * DashboardRepository is a class that reads everything the home screen needs.
+ * It returns the goal, first, latest and trend weight, entry count, streaks and
+ * goal projection as one immutable snapshot, read inside a single transaction.
+ */
+public class DashboardRepository {
+    private final DatabaseHelper helper;
+
+    /**
+     * Constructor for DashboardRepository
+     *
+     * @param ctx the context of the application
+     */
+    public DashboardRepository(Context ctx) {
+        this.helper = DatabaseHelper.getInstance(ctx);
+    }
+
+    /**
+     * DashboardSnapshot is an immutable read model of a user's home screen data.
+     * It also owns the goal progress math so the UI only formats the results.
+     */
+    public static final class DashboardSnapshot {
+        @Nullable
+        public final WeightGoalRepository.WeightGoalDTO goal;
+        @Nullable
+        public final Float firstWeightLb;
+        @Nullable
+        public final Float latestWeightLb;
+        @Nullable
+        public final Float trendWeightLb;
+        public final int entryCount;
+        public final WeightsRepository.StreakDTO streak;
+        @Nullable
+        public final GoalProjection projection;
+
+        /**
+         * Constructor for DashboardSnapshot
+         *
+         * @param goal           the user's goal, or null if none
+         * @param firstWeightLb  the earliest weight entry, or null if none
+         * @param latestWeightLb the most recent weight entry, or null if none
+         * @param trendWeightLb  the smoothed weight as of the most recent entry, or null if none
+         * @param entryCount     the number of weight entries
+         * @param streak         the user's logging streaks
+         * @param projection     when the recent pace reaches the goal, or null if
+         *                       there is no goal or too few recent entries
+         */
+        public DashboardSnapshot(@Nullable WeightGoalRepository.WeightGoalDTO goal, @Nullable Float firstWeightLb,
+                @Nullable Float latestWeightLb, @Nullable Float trendWeightLb, int entryCount,
+                WeightsRepository.StreakDTO streak, @Nullable GoalProjection projection) {
+            this.goal = goal;
+            this.firstWeightLb = firstWeightLb;
+            this.latestWeightLb = latestWeightLb;
+            this.trendWeightLb = trendWeightLb;
+            this.entryCount = entryCount;
+            this.streak = streak;
+            this.projection = projection;
+        }
+
+        /**
+         * Check if there is enough data to measure goal progress
+         *
+         * @return true if a goal, a starting weight and a current weight exist
+         */
+        public boolean hasProgress() {
+            return goal != null && firstWeightLb != null && latestWeightLb != null;
+        }
+
+        /**
+         * Get the weight progress is measured from: the smoothed trend, so a
+         * single heavy or light day does not swing the goal ring, falling back
+         * to the latest entry. It can differ from {@link #latestWeightLb}, so
+         * the UI should label it, see {@link #isProgressFromTrend}.
+         *
+         * @return the weight progress is measured from, or null if there are no entries
+         */
+        @Nullable
+        public Float getProgressWeightLb() {
+            return trendWeightLb != null ? trendWeightLb : latestWeightLb;
+        }
+
+        /**
+         * Check if progress is measured from the trend rather than the latest entry
+         *
+         * @return true if {@link #getProgressWeightLb} is the trend weight
+         */
+        public boolean isProgressFromTrend() {
+            return trendWeightLb != null;
+        }
+
+        /**
+         * Get the total distance between the starting weight and the goal
+         *
+         * @return |starting weight - goal weight|, or 0 if there is no progress data
+         */
+        public float getTotalDifferenceLb() {
+            if (!hasProgress())
+                return 0;
+            return GoalProgress.totalDifference(firstWeightLb, goal.targetLb);
+        }
+
+        /**
+         * Get the remaining distance between the progress weight and the goal
+         *
+         * @return |progress weight - goal weight|, or 0 if there is no progress data
+         */
+        public float getRemainingLb() {
+            if (!hasProgress())
+                return 0;
+            return GoalProgress.remaining(getProgressWeightLb(), goal.targetLb);
+        }
+
+        /**
+         * Get the goal progress as a percentage, see {@link GoalProgress#percent}
+         *
+         * @return progress clamped to 0-100, 100 if the start already equals the goal,
+         *         and 0 if there is no progress data
+         */
+        public float getProgressPercent() {
+            if (!hasProgress())
+                return 0;
+            return GoalProgress.percent(firstWeightLb, getProgressWeightLb(), goal.targetLb);
+        }
+    }
+
+    /**
+     * Get the dashboard snapshot for a user.
+     * The goal, first/latest/trend weight and count come from one statement of
+     * primary-key lookups on the goal, weight summary and trend tables, and the streak
+     * from one ordered index read, and the goal projection from the last few
+     * weekly rollups. No transaction is held, since on Android even a read
+     * transaction takes the write lock and would block logging a weight, so
+     * each of the three reads is consistent on its own. A write landing in
+     * between changes the data version, so Home reloads on its next resume.
+     *
+     * @param userId the id of the user
+     * @param today  the date the current streak must end on
+     * @return the dashboard snapshot for the user
+     */
+    public DashboardSnapshot getSnapshot(long userId, LocalDate today) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        String uid = String.valueOf(userId);
+
+        String goalWhere = " FROM " + WeightGoals.TABLE + " WHERE " + WeightGoals.COL_USER_ID + "=?1";
+        String summaryWhere = " FROM " + WeightSummary.TABLE + " WHERE " + WeightSummary.COL_USER_ID + "=?1";
+        String trendNewest = " FROM " + Trends.TABLE + " WHERE " + Trends.COL_USER_ID + "=?1" +
+                " ORDER BY " + Trends.COL_DATE + " DESC LIMIT 1";
+        String sql = "SELECT " +
+                "(SELECT " + WeightGoals.COL_TARGET_LB + goalWhere + "), " +
+                "(SELECT " + WeightGoals.COL_TARGET_DATE + goalWhere + "), " +
+                "(SELECT " + WeightGoals.COL_CREATED_AT + goalWhere + "), " +
+                "(SELECT " + WeightSummary.COL_FIRST_LB + summaryWhere + "), " +
+                "(SELECT " + WeightSummary.COL_LATEST_LB + summaryWhere + "), " +
+                "(SELECT " + WeightSummary.COL_ENTRY_COUNT + summaryWhere + "), " +
+                "(SELECT " + Trends.COL_EWMA_LB + trendNewest + ")";
+
+        WeightGoalRepository.WeightGoalDTO goal = null;
+        Float first = null;
+        Float latest = null;
+        Float trend = null;
+        int count = 0;
+
+        try (Cursor c = db.rawQuery(sql, new String[] { uid })) {
+            if (c.moveToFirst()) {
+                if (!c.isNull(0)) {
+                    goal = new WeightGoalRepository.WeightGoalDTO(
+                            userId, c.getFloat(0), c.getLong(1), c.getLong(2));
+                }
+                first = c.isNull(3) ? null : c.getFloat(3);
+                latest = c.isNull(4) ? null : c.getFloat(4);
+                count = c.isNull(5) ? 0 : c.getInt(5);
+                trend = c.isNull(6) ? null : c.getFloat(6);
+            }
+        }
+
+        WeightsRepository.StreakDTO streak;
+        try (Cursor c = db.query(
+                Weights.TABLE,
+                new String[] { Weights.COL_DATE },
+                Weights.COL_USER_ID + "=?",
+                new String[] { uid },
+                null, null,
+                Weights.COL_DATE + " DESC")) {
+            streak = WeightsRepository.readStreak(c, today);
+        }
+
+        GoalProjection projection = null;
+        if (goal != null && first != null) {
+            long todayDay = DateCodec.toEpochDay(today);
+            projection = GoalProjection.project(WeightsRepository.readRegressionSums(db, userId, todayDay),
+                    first, goal.targetLb, goal.targetEpochDay, todayDay);
+        }
+
+        return new DashboardSnapshot(goal, first, latest, trend, count, streak, projection);
+    }
+
+    /**
+     * Get the dashboard snapshot for a user, on the database executor
+     * 
+     * @see #getSnapshot
+     */
+    public void getSnapshotAsync(LifecycleOwner owner, long userId, LocalDate today,
+            DatabaseExecutor.Callback<DashboardSnapshot> callback) {
+        DatabaseExecutor.read(owner, () -> getSnapshot(userId, today), callback);
+    }
+}
@@ -5,9 +5,15 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
+
 import static com.example.kc_weight_tracker.data.DatabaseContract.Users;
 
+import com.example.kc_weight_tracker.data.DataVersionTracker;
+import com.example.kc_weight_tracker.data.DatabaseExecutor;
 import com.example.kc_weight_tracker.data.DatabaseHelper;
+import com.example.kc_weight_tracker.data.UserDataCache;
 
 /**
  * UserRepository is a class that manages the user data.
@@ -16,6 +22,12 @@ import com.example.kc_weight_tracker.data.DatabaseHelper;
  * It is also used to update the user's height.
  */
 public class UserRepository {
+    /// height lookup run through the helper's StatementCache, in hundredths of an inch so it
+    /// reads as a long, -1 if unset or no such user; package-private for PointLookupBenchmarkTest
+    static final String SQL_HEIGHT =
+            "SELECT IFNULL((SELECT CAST(ROUND(" + Users.COL_HEIGHT_INCHES + " * 100) AS INTEGER)" +
+                    " FROM " + Users.TABLE + " WHERE " + Users.COL_ID + "=?), -1)";
+
     private final DatabaseHelper helper;
 
     /**
@@ -24,7 +36,7 @@ public class UserRepository {
      * @param ctx the context of the application
      */
     public UserRepository(Context ctx) {
-        this.helper = new DatabaseHelper(ctx.getApplicationContext());
+        this.helper = DatabaseHelper.getInstance(ctx);
     }
 
     /**
@@ -49,7 +61,12 @@ public class UserRepository {
         cv.put(Users.COL_PASSWORD, rawPassword); // DEMO ONLY — swap with hashed value later
         cv.putNull(Users.COL_HEIGHT_INCHES);
         cv.put(Users.COL_CREATED_AT, System.currentTimeMillis());
-        return db.insert(Users.TABLE, null, cv);
+        long userId = db.insert(Users.TABLE, null, cv);
+
+        if (userId > 0) {
+            DataVersionTracker.bump(DataVersionTracker.Table.USERS, userId);
+        }
+        return userId;
     }
 
     /**
@@ -102,22 +119,19 @@ public class UserRepository {
      * @return the user's height in inches
      */
     public Double getUserHeight(long userId) {
-        SQLiteDatabase db = helper.getReadableDatabase();
-        try (Cursor c = db.query(
-                Users.TABLE,
-                new String[] { Users.COL_HEIGHT_INCHES },
-                Users.COL_ID + "=?",
-                new String[] { String.valueOf(userId) },
-                null, null, null)) {
-            if (c.moveToFirst()) {
-                int heightIndex = c.getColumnIndex(Users.COL_HEIGHT_INCHES);
-                if (c.isNull(heightIndex)) {
-                    return null; // No height set
-                }
-                return c.getDouble(heightIndex);
-            }
-        }
-        return null; // User not found or no height set
+        return UserDataCache.get(userId, UserDataCache.Key.HEIGHT,
+                () -> toHeightInches(helper.getStatementCache().queryForLong(SQL_HEIGHT, userId)));
+    }
+
+    /**
+     * Decode a height read with {@link #SQL_HEIGHT}. Heights are whole or
+     * tenth inches, so hundredths divide back to the same double.
+     *
+     * @param centiInches the height in hundredths of an inch, or -1 if there is none
+     * @return the height, or null if the user was not found or has no height set
+     */
+    static Double toHeightInches(long centiInches) {
+        return centiInches < 0 ? null : centiInches / 100.0;
     }
 
     /**
@@ -138,6 +152,59 @@ public class UserRepository {
                 Users.COL_ID + "=?",
                 new String[] { String.valueOf(userId) });
 
+        if (rowsAffected > 0) {
+            DataVersionTracker.bump(DataVersionTracker.Table.USERS, userId);
+        }
         return rowsAffected > 0;
     }
+
+    /**
+     * Create a new user, on the database executor
+     * 
+     * @see #createUser
+     */
+    public void createUserAsync(LifecycleOwner owner, String username, String rawPassword,
+            DatabaseExecutor.Callback<Long> callback) {
+        DatabaseExecutor.write(owner, () -> createUser(username, rawPassword), callback);
+    }
+
+    /**
+     * Check if the user exists, on the database executor
+     * 
+     * @see #userExists
+     */
+    public void userExistsAsync(LifecycleOwner owner, String username,
+            DatabaseExecutor.Callback<Boolean> callback) {
+        DatabaseExecutor.read(owner, () -> userExists(username), callback);
+    }
+
+    /**
+     * Authenticate the user with the username and password, on the database executor
+     * 
+     * @see #authenticate
+     */
+    public void authenticateAsync(LifecycleOwner owner, String username, String rawPassword,
+            DatabaseExecutor.Callback<Long> callback) {
+        DatabaseExecutor.read(owner, () -> authenticate(username, rawPassword), callback);
+    }
+
+    /**
+     * Get the user's height in inches, on the database executor
+     * 
+     * @see #getUserHeight
+     */
+    public void getUserHeightAsync(LifecycleOwner owner, long userId,
+            DatabaseExecutor.Callback<Double> callback) {
+        DatabaseExecutor.read(owner, () -> getUserHeight(userId), callback);
+    }
+
+    /**
+     * Update the user's height in inches, on the database executor
+     * 
+     * @see #updateUserHeight
+     */
+    public void updateUserHeightAsync(LifecycleOwner owner, long userId, double heightInches,
+            @Nullable DatabaseExecutor.Callback<Boolean> callback) {
+        DatabaseExecutor.write(owner, () -> updateUserHeight(userId, heightInches), callback);
+    }
 }
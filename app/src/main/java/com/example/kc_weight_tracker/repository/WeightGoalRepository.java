@@ -6,9 +6,13 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
 import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
 
+import com.example.kc_weight_tracker.data.DataVersionTracker;
 import com.example.kc_weight_tracker.data.DatabaseContract;
+import com.example.kc_weight_tracker.data.DatabaseExecutor;
 import com.example.kc_weight_tracker.data.DatabaseHelper;
+import com.example.kc_weight_tracker.data.UserDataCache;
 
 import static com.example.kc_weight_tracker.data.DatabaseContract.WeightGoals;
 
@@ -26,7 +30,7 @@ public class WeightGoalRepository {
      * @param ctx the context of the application
      */
     public WeightGoalRepository(Context ctx) {
-        this.helper = new DatabaseHelper(ctx.getApplicationContext());
+        this.helper = DatabaseHelper.getInstance(ctx);
     }
 
     /**
@@ -37,7 +41,7 @@ public class WeightGoalRepository {
     public static final class WeightGoalDTO {
         public final long userId;
         public final float targetLb;
-        public final String targetDateIso;
+        public final long targetEpochDay;
         public final long createdAtEpochMs;
 
         /**
@@ -45,13 +49,13 @@ public class WeightGoalRepository {
          * 
          * @param userId           the id of the user
          * @param targetLb         the target weight
-         * @param targetDateIso    the target date
+         * @param targetEpochDay   the target date, as days since 1970-01-01
          * @param createdAtEpochMs the created at epoch milliseconds
          */
-        public WeightGoalDTO(long userId, float targetLb, String targetDateIso, long createdAtEpochMs) {
+        public WeightGoalDTO(long userId, float targetLb, long targetEpochDay, long createdAtEpochMs) {
             this.userId = userId;
             this.targetLb = targetLb;
-            this.targetDateIso = targetDateIso;
+            this.targetEpochDay = targetEpochDay;
             this.createdAtEpochMs = createdAtEpochMs;
         }
     }
@@ -61,15 +65,34 @@ public class WeightGoalRepository {
      * 
      * @param userId           the id of the user
      * @param targetLb         the target weight
-     * @param targetDateIso    the target date
+     * @param targetEpochDay   the target date, see {@link com.example.kc_weight_tracker.data.DateCodec}
      * @return the id of the goal if the insert or replace was successful, -1 otherwise
      */
-    public long upsertGoal(long userId, float targetLb, String targetDateIso) {
-        SQLiteDatabase db = helper.getWritableDatabase();
+    public long upsertGoal(long userId, float targetLb, long targetEpochDay) {
+        long id = writeGoal(helper.getWritableDatabase(), userId, targetLb, targetEpochDay);
+        if (id > 0) {
+            DataVersionTracker.bump(DataVersionTracker.Table.GOALS, userId);
+        }
+        return id;
+    }
+
+    /**
+     * Insert or replace the user's goal row without bumping the data version.
+     * For callers writing the goal inside their own transaction, which must
+     * bump GOALS after it commits so a reader cannot cache the old goal under
+     * the new version.
+     *
+     * @param db             the writable database
+     * @param userId         the id of the user
+     * @param targetLb       the target weight
+     * @param targetEpochDay the target date, as days since 1970-01-01
+     * @return the id of the goal row, -1 on failure
+     */
+    static long writeGoal(SQLiteDatabase db, long userId, float targetLb, long targetEpochDay) {
         ContentValues cv = new ContentValues();
         cv.put(WeightGoals.COL_USER_ID, userId);
         cv.put(WeightGoals.COL_TARGET_LB, targetLb);
-        cv.put(WeightGoals.COL_TARGET_DATE, targetDateIso);
+        cv.put(WeightGoals.COL_TARGET_DATE, targetEpochDay);
         cv.put(WeightGoals.COL_CREATED_AT, System.currentTimeMillis());
 
         return db.insertWithOnConflict(
@@ -87,6 +110,12 @@ public class WeightGoalRepository {
      */
     @Nullable
     public WeightGoalDTO getCurrentGoal(long userId) {
+        return UserDataCache.get(userId, UserDataCache.Key.GOAL, () -> readGoal(userId));
+    }
+
+    /** Read the user's goal row, a primary-key lookup */
+    @Nullable
+    private WeightGoalDTO readGoal(long userId) {
         SQLiteDatabase db = helper.getReadableDatabase();
         try (Cursor c = db.query(
                 WeightGoals.TABLE,
@@ -100,7 +129,7 @@ public class WeightGoalRepository {
             return new WeightGoalDTO(
                     c.getLong(c.getColumnIndexOrThrow(WeightGoals.COL_USER_ID)),
                     c.getFloat(c.getColumnIndexOrThrow(WeightGoals.COL_TARGET_LB)),
-                    c.getString(c.getColumnIndexOrThrow(WeightGoals.COL_TARGET_DATE)),
+                    c.getLong(c.getColumnIndexOrThrow(WeightGoals.COL_TARGET_DATE)),
                     c.getLong(c.getColumnIndexOrThrow(WeightGoals.COL_CREATED_AT)));
         }
     }
@@ -113,6 +142,40 @@ public class WeightGoalRepository {
      */
     public int clear(long userId) {
         SQLiteDatabase db = helper.getWritableDatabase();
-        return db.delete(WeightGoals.TABLE, WeightGoals.COL_USER_ID + "=?", new String[] { String.valueOf(userId) });
+        int rows = db.delete(WeightGoals.TABLE, WeightGoals.COL_USER_ID + "=?", new String[] { String.valueOf(userId) });
+        if (rows > 0) {
+            DataVersionTracker.bump(DataVersionTracker.Table.GOALS, userId);
+        }
+        return rows;
+    }
+
+    /**
+     * Insert or replace the user's single goal, on the database executor
+     * 
+     * @see #upsertGoal
+     */
+    public void upsertGoalAsync(LifecycleOwner owner, long userId, float targetLb,
+            long targetEpochDay, @Nullable DatabaseExecutor.Callback<Long> callback) {
+        DatabaseExecutor.write(owner, () -> upsertGoal(userId, targetLb, targetEpochDay), callback);
+    }
+
+    /**
+     * Get the current goal for the user, on the database executor
+     * 
+     * @see #getCurrentGoal
+     */
+    public void getCurrentGoalAsync(LifecycleOwner owner, long userId,
+            DatabaseExecutor.Callback<WeightGoalDTO> callback) {
+        DatabaseExecutor.read(owner, () -> getCurrentGoal(userId), callback);
+    }
+
+    /**
+     * Clear the user's goal, on the database executor
+     * 
+     * @see #clear
+     */
+    public void clearAsync(LifecycleOwner owner, long userId,
+            @Nullable DatabaseExecutor.Callback<Integer> callback) {
+        DatabaseExecutor.write(owner, () -> clear(userId), callback);
     }
 }
@@ -5,9 +5,22 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.kc_weight_tracker.data.DataVersionTracker;
 import com.example.kc_weight_tracker.data.DatabaseContract;
+import com.example.kc_weight_tracker.data.DatabaseExecutor;
 import com.example.kc_weight_tracker.data.DatabaseHelper;
+import com.example.kc_weight_tracker.data.DateCodec;
+import com.example.kc_weight_tracker.data.GoalProjection;
+import com.example.kc_weight_tracker.data.StreakCounter;
+import com.example.kc_weight_tracker.data.UserDataCache;
+import com.example.kc_weight_tracker.data.WeightRollups;
+import com.example.kc_weight_tracker.data.WeightSeries;
+import com.example.kc_weight_tracker.data.WeightTrends;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,10 +31,34 @@ import java.util.List;
  * weight entry for a user.
  */
 public class WeightsRepository {
+    /// columns read into a WeightDTO, in constructor order
+    private static final String[] WEIGHT_COLUMNS = {
+            DatabaseContract.Weights.COL_ID,
+            DatabaseContract.Weights.COL_USER_ID,
+            DatabaseContract.Weights.COL_DATE,
+            DatabaseContract.Weights.COL_WEIGHT_LB
+    };
+
+    /// pass to {@link #getWeightHistoryPage} to start from the newest entry
+    public static final long FIRST_PAGE = Long.MAX_VALUE;
+
+    /// point lookups run through the helper's StatementCache, each always one row,
+    /// package-private for PointLookupBenchmarkTest
+    static final String SQL_HAS_ENTRY =
+            "SELECT EXISTS(SELECT 1 FROM " + DatabaseContract.Weights.TABLE +
+                    " WHERE " + DatabaseContract.Weights.COL_USER_ID + "=? AND " +
+                    DatabaseContract.Weights.COL_DATE + "=?)";
+    static final String SQL_LATEST_LB = summaryWeightSql(DatabaseContract.WeightSummary.COL_LATEST_LB);
+    static final String SQL_FIRST_LB = summaryWeightSql(DatabaseContract.WeightSummary.COL_FIRST_LB);
+
+    /// weights are stored floats; times 2^23 every float from 1 up is a whole number, so a
+    /// summary weight reads back exactly as a long, with no String to allocate and parse
+    private static final long WEIGHT_SCALE = 1L << 23;
+
     private final DatabaseHelper helper;
 
     public WeightsRepository(Context ctx) {
-        this.helper = new DatabaseHelper(ctx.getApplicationContext());
+        this.helper = DatabaseHelper.getInstance(ctx);
     }
 
     /**
@@ -31,7 +68,7 @@ public class WeightsRepository {
     public static final class WeightDTO {
         public final long id;
         public final long userId;
-        public final String dateIso;
+        public final long epochDay;
         public final float weightLb;
 
         /**
@@ -39,33 +76,202 @@ public class WeightsRepository {
          * 
          * @param id       the id of the weight entry
          * @param userId   the id of the user
-         * @param dateIso  the date of the weight entry
+         * @param epochDay the date of the weight entry, as days since 1970-01-01
          * @param weightLb the weight of the weight entry
          */
-        public WeightDTO(long id, long userId, String dateIso, float weightLb) {
+        public WeightDTO(long id, long userId, long epochDay, float weightLb) {
             this.id = id;
             this.userId = userId;
-            this.dateIso = dateIso;
+            this.epochDay = epochDay;
             this.weightLb = weightLb;
         }
     }
 
     /**
-     * Add a new weight entry
+     * WeightSummaryDTO is a class that represents a user's weight statistics.
+     * It is read from the trigger-maintained weight summary table, so it costs
+     * one primary-key lookup no matter how many entries the user has.
+     */
+    public static final class WeightSummaryDTO {
+        public final long userId;
+        public final int entryCount;
+        public final long firstEpochDay;
+        public final float firstWeightLb;
+        public final long latestEpochDay;
+        public final float latestWeightLb;
+        public final float minWeightLb;
+        public final float maxWeightLb;
+        public final long sumCentiLb;
+
+        /**
+         * Constructor for WeightSummaryDTO
+         *
+         * @param userId         the id of the user
+         * @param entryCount     the number of weight entries
+         * @param firstEpochDay  the earliest entry date
+         * @param firstWeightLb  the earliest entry weight
+         * @param latestEpochDay the most recent entry date
+         * @param latestWeightLb the most recent entry weight
+         * @param minWeightLb    the lowest weight
+         * @param maxWeightLb    the highest weight
+         * @param sumCentiLb     the sum of all weights in hundredths of a pound
+         */
+        public WeightSummaryDTO(long userId, int entryCount, long firstEpochDay, float firstWeightLb,
+                long latestEpochDay, float latestWeightLb, float minWeightLb, float maxWeightLb,
+                long sumCentiLb) {
+            this.userId = userId;
+            this.entryCount = entryCount;
+            this.firstEpochDay = firstEpochDay;
+            this.firstWeightLb = firstWeightLb;
+            this.latestEpochDay = latestEpochDay;
+            this.latestWeightLb = latestWeightLb;
+            this.minWeightLb = minWeightLb;
+            this.maxWeightLb = maxWeightLb;
+            this.sumCentiLb = sumCentiLb;
+        }
+
+        /**
+         * Get the average weight
+         *
+         * @return the mean of all entries in pounds
+         */
+        public double getAverageLb() {
+            return sumCentiLb / 100.0 / entryCount;
+        }
+    }
+
+    /**
+     * RollupDTO is a class that represents one period of a user's weight rollup.
+     * It holds the entry count, weight sum, min and max of a week or month.
+     */
+    public static final class RollupDTO {
+        public final long periodStartEpochDay;
+        public final int entryCount;
+        public final long sumCentiLb;
+        public final float minWeightLb;
+        public final float maxWeightLb;
+
+        /**
+         * Constructor for RollupDTO
+         *
+         * @param periodStartEpochDay the first day of the period
+         * @param entryCount          the number of entries in the period
+         * @param sumCentiLb          the sum of the period's weights in hundredths of a pound
+         * @param minWeightLb         the lowest weight in the period
+         * @param maxWeightLb         the highest weight in the period
+         */
+        public RollupDTO(long periodStartEpochDay, int entryCount, long sumCentiLb,
+                float minWeightLb, float maxWeightLb) {
+            this.periodStartEpochDay = periodStartEpochDay;
+            this.entryCount = entryCount;
+            this.sumCentiLb = sumCentiLb;
+            this.minWeightLb = minWeightLb;
+            this.maxWeightLb = maxWeightLb;
+        }
+
+        /**
+         * Get the average weight of the period
+         *
+         * @return the mean of the period's entries in pounds
+         */
+        public double getAverageLb() {
+            return sumCentiLb / 100.0 / entryCount;
+        }
+    }
+
+    /**
+     * StreakDTO is a class that represents a user's logging streaks.
+     * It is used to store the current streak (consecutive days ending today),
+     * the longest streak ever logged, and the last logged date.
+     */
+    public static final class StreakDTO {
+        public final int currentStreak;
+        public final int longestStreak;
+        @Nullable
+        public final Long lastLoggedEpochDay;
+
+        /**
+         * Constructor for StreakDTO
+         * 
+         * @param currentStreak     consecutive logged days ending today
+         * @param longestStreak     longest run of consecutive logged days
+         * @param lastLoggedEpochDay the most recent logged date as an epoch day, or null if none
+         */
+        public StreakDTO(int currentStreak, int longestStreak, @Nullable Long lastLoggedEpochDay) {
+            this.currentStreak = currentStreak;
+            this.longestStreak = longestStreak;
+            this.lastLoggedEpochDay = lastLoggedEpochDay;
+        }
+    }
+
+    /**
+     * TrendDTO is a class that represents a user's smoothed weight trend.
+     * It is used to store the date of the newest entry and the trend values
+     * as of that entry, see {@link WeightTrends}.
+     */
+    public static final class TrendDTO {
+        public final long epochDay;
+        public final double ewmaLb;
+        public final double shortAverageLb;
+        public final double longAverageLb;
+
+        /**
+         * Constructor for TrendDTO
+         *
+         * @param epochDay       the date of the entry the trend is as of
+         * @param ewmaLb         the exponentially weighted average
+         * @param shortAverageLb the mean of the entries in the 7 days ending on the date
+         * @param longAverageLb  the mean of the entries in the 30 days ending on the date
+         */
+        public TrendDTO(long epochDay, double ewmaLb, double shortAverageLb, double longAverageLb) {
+            this.epochDay = epochDay;
+            this.ewmaLb = ewmaLb;
+            this.shortAverageLb = shortAverageLb;
+            this.longAverageLb = longAverageLb;
+        }
+    }
+
+    /**
+     * Add a new weight entry.
+     * The unique (user_id, date) index rejects a second entry for the same
+     * day, so callers do not need to check {@link #hasWeightEntry} first.
+     * The week and month of the entry are rolled up again, and the trend
+     * recomputed from its date, in the same transaction.
      * 
      * @param userId   the id of the user
-     * @param dateIso  the date of the weight entry
+     * @param epochDay the date of the weight entry, see {@link DateCodec}
      * @param weightLb the weight of the weight entry
      * @return the id of the weight entry if the addition was successful, -1
-     *         otherwise
+     *         if an entry already exists for the date or the insert failed
      */
-    public long addWeight(long userId, String dateIso, float weightLb) {
+    public long addWeight(long userId, long epochDay, float weightLb) {
         SQLiteDatabase db = helper.getWritableDatabase();
         ContentValues cv = new ContentValues();
         cv.put(DatabaseContract.Weights.COL_USER_ID, userId);
-        cv.put(DatabaseContract.Weights.COL_DATE, dateIso);
+        cv.put(DatabaseContract.Weights.COL_DATE, epochDay);
         cv.put(DatabaseContract.Weights.COL_WEIGHT_LB, weightLb);
-        return db.insert(DatabaseContract.Weights.TABLE, null, cv);
+
+        long id;
+        db.beginTransaction();
+        try {
+            id = db.insertWithOnConflict(
+                    DatabaseContract.Weights.TABLE,
+                    null,
+                    cv,
+                    SQLiteDatabase.CONFLICT_IGNORE);
+            if (id > 0) {
+                WeightRollups.refresh(db, userId, epochDay);
+                WeightTrends.recompute(db, userId, epochDay);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        if (id > 0) {
+            DataVersionTracker.bump(DataVersionTracker.Table.WEIGHTS, userId);
+        }
+        return id;
     }
 
     /**
@@ -79,11 +285,30 @@ public class WeightsRepository {
         SQLiteDatabase db = helper.getWritableDatabase();
         ContentValues cv = new ContentValues();
         cv.put(DatabaseContract.Weights.COL_WEIGHT_LB, newWeightLb);
-        return db.update(
-                DatabaseContract.Weights.TABLE,
-                cv,
-                DatabaseContract.Weights.COL_ID + "=?",
-                new String[] { String.valueOf(id) });
+
+        long[] key;
+        int rows;
+        db.beginTransaction();
+        try {
+            key = readUserAndDate(db, id);
+            rows = db.update(
+                    DatabaseContract.Weights.TABLE,
+                    cv,
+                    DatabaseContract.Weights.COL_ID + "=?",
+                    new String[] { String.valueOf(id) });
+            if (rows > 0 && key != null) {
+                WeightRollups.refresh(db, key[0], key[1]);
+                WeightTrends.recompute(db, key[0], key[1]);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        if (rows > 0 && key != null) {
+            DataVersionTracker.bump(DataVersionTracker.Table.WEIGHTS, key[0]);
+        }
+        return rows;
     }
 
     /**
@@ -94,10 +319,42 @@ public class WeightsRepository {
      */
     public int deleteWeight(long id) {
         SQLiteDatabase db = helper.getWritableDatabase();
-        return db.delete(
+
+        long[] key;
+        int rows;
+        db.beginTransaction();
+        try {
+            key = readUserAndDate(db, id);
+            rows = db.delete(
+                    DatabaseContract.Weights.TABLE,
+                    DatabaseContract.Weights.COL_ID + "=?",
+                    new String[] { String.valueOf(id) });
+            if (rows > 0 && key != null) {
+                WeightRollups.refresh(db, key[0], key[1]);
+                WeightTrends.recompute(db, key[0], key[1]);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        if (rows > 0 && key != null) {
+            DataVersionTracker.bump(DataVersionTracker.Table.WEIGHTS, key[0]);
+        }
+        return rows;
+    }
+
+    /** Read the user id and date of an entry so its rollup periods can be found, or null if it is gone */
+    @Nullable
+    private static long[] readUserAndDate(SQLiteDatabase db, long id) {
+        try (Cursor c = db.query(
                 DatabaseContract.Weights.TABLE,
+                new String[] { DatabaseContract.Weights.COL_USER_ID, DatabaseContract.Weights.COL_DATE },
                 DatabaseContract.Weights.COL_ID + "=?",
-                new String[] { String.valueOf(id) });
+                new String[] { String.valueOf(id) },
+                null, null, null)) {
+            return c.moveToFirst() ? new long[] { c.getLong(0), c.getLong(1) } : null;
+        }
     }
 
     /**
@@ -110,11 +367,34 @@ public class WeightsRepository {
         List<WeightDTO> list = new ArrayList<>();
         SQLiteDatabase db = helper.getReadableDatabase();
 
+        try (Cursor c = db.query(
+                DatabaseContract.Weights.TABLE,
+                WEIGHT_COLUMNS,
+                DatabaseContract.Weights.COL_USER_ID + "=?",
+                new String[] { String.valueOf(userId) },
+                null, null,
+                DatabaseContract.Weights.COL_DATE + " DESC")) {
+            readWeights(c, list);
+        }
+
+        return list;
+    }
+
+    /**
+     * Get the full weight history for a user as a primitive series, oldest first.
+     * Rows go straight from the cursor into the series' arrays, with no
+     * per-entry objects, for stats, streaks and charts over long histories.
+     * 
+     * @param userId the id of the user
+     * @return the user's weight series, empty if there are no entries
+     */
+    public WeightSeries getWeightSeries(long userId) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+
         String[] cols = {
-                DatabaseContract.Weights.COL_ID,
-                DatabaseContract.Weights.COL_USER_ID,
                 DatabaseContract.Weights.COL_DATE,
-                DatabaseContract.Weights.COL_WEIGHT_LB
+                DatabaseContract.Weights.COL_WEIGHT_LB,
+                DatabaseContract.Weights.COL_ID
         };
 
         try (Cursor c = db.query(
@@ -123,40 +403,91 @@ public class WeightsRepository {
                 DatabaseContract.Weights.COL_USER_ID + "=?",
                 new String[] { String.valueOf(userId) },
                 null, null,
-                DatabaseContract.Weights.COL_DATE + " DESC")) {
+                DatabaseContract.Weights.COL_DATE + " ASC")) {
+            WeightSeries.Builder series = new WeightSeries.Builder(c.getCount());
             while (c.moveToNext()) {
-                long id = c.getLong(0);
-                long uid = c.getLong(1);
-                String dateIso = c.getString(2);
-                float weight = c.getFloat(3);
-                list.add(new WeightDTO(id, uid, dateIso, weight));
+                series.add(c.getInt(0), c.getFloat(1), c.getLong(2));
             }
+            return series.build();
+        }
+    }
+
+    /**
+     * Get one page of the weight history for a user, newest first.
+     * Pages are keyed on the date rather than an offset, so each page is a
+     * bounded range read on the (user_id, date) index no matter how deep
+     * into the history it is.
+     * 
+     * @param userId         the id of the user
+     * @param beforeEpochDay only return entries strictly before this date, or
+     *                       {@link #FIRST_PAGE} for the first page
+     * @param limit          the maximum number of entries to return
+     * @return up to limit entries older than beforeEpochDay
+     */
+    public List<WeightDTO> getWeightHistoryPage(long userId, long beforeEpochDay, int limit) {
+        List<WeightDTO> list = new ArrayList<>(limit);
+        SQLiteDatabase db = helper.getReadableDatabase();
+
+        try (Cursor c = db.query(
+                DatabaseContract.Weights.TABLE,
+                WEIGHT_COLUMNS,
+                DatabaseContract.Weights.COL_USER_ID + "=? AND " + DatabaseContract.Weights.COL_DATE + "<?",
+                new String[] { String.valueOf(userId), String.valueOf(beforeEpochDay) },
+                null, null,
+                DatabaseContract.Weights.COL_DATE + " DESC",
+                String.valueOf(limit))) {
+            readWeights(c, list);
         }
 
         return list;
     }
 
     /**
-     * Get the latest weight entry for a user
+     * Read weight rows selected with {@link #WEIGHT_COLUMNS} into a list
+     * 
+     * @param c    the cursor positioned before the first row
+     * @param list the list to append to
+     */
+    private static void readWeights(Cursor c, List<WeightDTO> list) {
+        while (c.moveToNext()) {
+            long id = c.getLong(0);
+            long uid = c.getLong(1);
+            long epochDay = c.getLong(2);
+            float weight = c.getFloat(3);
+            list.add(new WeightDTO(id, uid, epochDay, weight));
+        }
+    }
+
+    /**
+     * Get the weight statistics for a user
      * 
      * @param userId the id of the user
-     * @return the latest weight entry for the user
+     * @return the user's summary, or null if the user has no entries
      */
-    public Float getLatestWeight(long userId) {
+    @Nullable
+    public WeightSummaryDTO getSummary(long userId) {
         SQLiteDatabase db = helper.getReadableDatabase();
 
-        String[] cols = { DatabaseContract.Weights.COL_WEIGHT_LB };
+        String[] cols = {
+                DatabaseContract.WeightSummary.COL_ENTRY_COUNT,
+                DatabaseContract.WeightSummary.COL_FIRST_DATE,
+                DatabaseContract.WeightSummary.COL_FIRST_LB,
+                DatabaseContract.WeightSummary.COL_LATEST_DATE,
+                DatabaseContract.WeightSummary.COL_LATEST_LB,
+                DatabaseContract.WeightSummary.COL_MIN_LB,
+                DatabaseContract.WeightSummary.COL_MAX_LB,
+                DatabaseContract.WeightSummary.COL_SUM_CENTI_LB
+        };
 
         try (Cursor c = db.query(
-                DatabaseContract.Weights.TABLE,
+                DatabaseContract.WeightSummary.TABLE,
                 cols,
-                DatabaseContract.Weights.COL_USER_ID + "=?",
+                DatabaseContract.WeightSummary.COL_USER_ID + "=?",
                 new String[] { String.valueOf(userId) },
-                null, null,
-                DatabaseContract.Weights.COL_DATE + " DESC",
-                "1")) {
+                null, null, null)) {
             if (c.moveToFirst()) {
-                return c.getFloat(0);
+                return new WeightSummaryDTO(userId, c.getInt(0), c.getLong(1), c.getFloat(2),
+                        c.getLong(3), c.getFloat(4), c.getFloat(5), c.getFloat(6), c.getLong(7));
             }
         }
 
@@ -164,53 +495,361 @@ public class WeightsRepository {
     }
 
     /**
-     * Get the first weight entry for a user (earliest date)
-     * Used to determine starting weight for progress calculation
+     * Get a user's weekly or monthly rollups over a date range, oldest first.
+     * Reads one row per period from the rollup table, however many entries
+     * each period holds.
      * 
+     * @param userId       the id of the user
+     * @param period       the rollup granularity
+     * @param fromEpochDay the first day of the range; its whole period is included
+     * @param toEpochDay   the last day of the range, inclusive
+     * @return the periods in the range that have entries
+     */
+    public List<RollupDTO> getRollups(long userId, WeightRollups.Period period,
+            long fromEpochDay, long toEpochDay) {
+        List<RollupDTO> list = new ArrayList<>();
+        SQLiteDatabase db = helper.getReadableDatabase();
+
+        String[] cols = {
+                DatabaseContract.Rollups.COL_PERIOD_START,
+                DatabaseContract.Rollups.COL_ENTRY_COUNT,
+                DatabaseContract.Rollups.COL_SUM_CENTI_LB,
+                DatabaseContract.Rollups.COL_MIN_LB,
+                DatabaseContract.Rollups.COL_MAX_LB
+        };
+
+        try (Cursor c = db.query(
+                period.table,
+                cols,
+                DatabaseContract.Rollups.COL_USER_ID + "=? AND " +
+                        DatabaseContract.Rollups.COL_PERIOD_START + " BETWEEN ? AND ?",
+                new String[] { String.valueOf(userId), String.valueOf(period.start(fromEpochDay)),
+                        String.valueOf(toEpochDay) },
+                null, null,
+                DatabaseContract.Rollups.COL_PERIOD_START + " ASC")) {
+            while (c.moveToNext()) {
+                list.add(new RollupDTO(c.getLong(0), c.getInt(1), c.getLong(2), c.getFloat(3), c.getFloat(4)));
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Get a user's current weight trend, as of their newest entry.
+     * Reads one row from the trend table, which the writes keep current.
+     *
      * @param userId the id of the user
-     * @return the first weight entry for the user, or null if none exists
+     * @return the trend, or null if the user has no entries
      */
-    public Float getFirstWeight(long userId) {
+    @Nullable
+    public TrendDTO getTrend(long userId) {
         SQLiteDatabase db = helper.getReadableDatabase();
 
-        String[] cols = { DatabaseContract.Weights.COL_WEIGHT_LB };
+        String[] cols = {
+                DatabaseContract.Trends.COL_DATE,
+                DatabaseContract.Trends.COL_EWMA_LB,
+                DatabaseContract.Trends.COL_AVG_SHORT_LB,
+                DatabaseContract.Trends.COL_AVG_LONG_LB
+        };
 
         try (Cursor c = db.query(
-                DatabaseContract.Weights.TABLE,
+                DatabaseContract.Trends.TABLE,
                 cols,
-                DatabaseContract.Weights.COL_USER_ID + "=?",
+                DatabaseContract.Trends.COL_USER_ID + "=?",
                 new String[] { String.valueOf(userId) },
                 null, null,
-                DatabaseContract.Weights.COL_DATE + " ASC", // ASC for earliest first
+                DatabaseContract.Trends.COL_DATE + " DESC",
                 "1")) {
             if (c.moveToFirst()) {
-                return c.getFloat(0);
+                return new TrendDTO(c.getLong(0), c.getDouble(1), c.getDouble(2), c.getDouble(3));
             }
         }
 
         return null;
     }
 
+    /**
+     * Get the latest weight entry for a user
+     * 
+     * @param userId the id of the user
+     * @return the latest weight entry for the user
+     */
+    public Float getLatestWeight(long userId) {
+        return UserDataCache.get(userId, UserDataCache.Key.LATEST_WEIGHT,
+                () -> readSummaryWeight(userId, SQL_LATEST_LB));
+    }
+
+    /**
+     * Get the first weight entry for a user (earliest date)
+     * Used to determine starting weight for progress calculation
+     * 
+     * @param userId the id of the user
+     * @return the first weight entry for the user, or null if none exists
+     */
+    public Float getFirstWeight(long userId) {
+        return UserDataCache.get(userId, UserDataCache.Key.FIRST_WEIGHT,
+                () -> readSummaryWeight(userId, SQL_FIRST_LB));
+    }
+
+    /**
+     * Get the average weight for a user
+     * 
+     * @param userId the id of the user
+     * @return the mean of the user's entries, or null if none exists
+     */
+    public Double getAverageWeight(long userId) {
+        WeightSummaryDTO summary = getSummary(userId);
+        return summary == null ? null : summary.getAverageLb();
+    }
+
+    /** Read one weight column of the user's summary row, a primary-key lookup */
+    private Float readSummaryWeight(long userId, String sql) {
+        return toWeightLb(helper.getStatementCache().queryForLong(sql, userId));
+    }
+
+    /**
+     * Decode a weight read with {@link #summaryWeightSql}
+     *
+     * @param scaled the weight times {@link #WEIGHT_SCALE}, or -1 if there is none
+     * @return the weight, or null if the user has no entries
+     */
+    static Float toWeightLb(long scaled) {
+        return scaled < 0 ? null : (float) ((double) scaled / WEIGHT_SCALE);
+    }
+
+    /// one weight column of a user's summary row, scaled to an integer, -1 if the user has no entries
+    private static String summaryWeightSql(String column) {
+        return "SELECT IFNULL((SELECT CAST(" + column + " * " + WEIGHT_SCALE + " AS INTEGER)" +
+                " FROM " + DatabaseContract.WeightSummary.TABLE +
+                " WHERE " + DatabaseContract.WeightSummary.COL_USER_ID + "=?), -1)";
+    }
+
     /**
      * Check if a weight entry exists for a specific date
      * 
-     * @param userId  the id of the user
-     * @param dateIso the date of the weight entry
+     * @param userId   the id of the user
+     * @param epochDay the date of the weight entry
      * @return true if a weight entry exists for the date, false otherwise
      */
-    public boolean hasWeightEntry(long userId, String dateIso) {
+    public boolean hasWeightEntry(long userId, long epochDay) {
+        return helper.getStatementCache().queryForLong(SQL_HAS_ENTRY, userId, epochDay) != 0;
+    }
+
+    /**
+     * Get the logging streaks for a user.
+     * Reads the user's dates newest first in one pass over the (user_id, date)
+     * index, so the cost is one query regardless of streak length.
+     * 
+     * @param userId the id of the user
+     * @param today  the date the current streak must end on
+     * @return the current and longest streaks and the last logged date
+     */
+    public StreakDTO getStreak(long userId, LocalDate today) {
         SQLiteDatabase db = helper.getReadableDatabase();
 
-        String[] cols = { DatabaseContract.Weights.COL_ID };
+        String[] cols = { DatabaseContract.Weights.COL_DATE };
 
         try (Cursor c = db.query(
                 DatabaseContract.Weights.TABLE,
                 cols,
-                DatabaseContract.Weights.COL_USER_ID + "=? AND " + DatabaseContract.Weights.COL_DATE + "=?",
-                new String[] { String.valueOf(userId), dateIso },
-                null, null, null,
-                "1")) {
-            return c.moveToFirst();
+                DatabaseContract.Weights.COL_USER_ID + "=?",
+                new String[] { String.valueOf(userId) },
+                null, null,
+                DatabaseContract.Weights.COL_DATE + " DESC")) {
+            return readStreak(c, today);
         }
     }
+
+    /**
+     * Read the least-squares sums of a user's recent entries for a goal projection.
+     * Sums the weekly rollups from the week containing
+     * {@link GoalProjection#WINDOW_DAYS} days before today, so the window is
+     * that long plus up to six days, at most five rollup rows.
+     *
+     * @param db            SQLite database instance
+     * @param userId        the id of the user
+     * @param todayEpochDay the day the window ends on
+     * @return the sums, empty if nothing was logged in the window
+     */
+    static GoalProjection.Sums readRegressionSums(SQLiteDatabase db, long userId, long todayEpochDay) {
+        WeightRollups.Period week = WeightRollups.Period.WEEK;
+        long from = week.start(todayEpochDay - GoalProjection.WINDOW_DAYS + 1);
+        GoalProjection.Sums sums = new GoalProjection.Sums();
+        try (Cursor c = db.query(
+                week.table,
+                new String[] {
+                        DatabaseContract.Rollups.COL_ENTRY_COUNT,
+                        DatabaseContract.Rollups.COL_SUM_DAY,
+                        DatabaseContract.Rollups.COL_SUM_CENTI_LB,
+                        DatabaseContract.Rollups.COL_SUM_DAY_SQ,
+                        DatabaseContract.Rollups.COL_SUM_DAY_CENTI_LB
+                },
+                DatabaseContract.Rollups.COL_USER_ID + "=? AND " +
+                        DatabaseContract.Rollups.COL_PERIOD_START + " BETWEEN ? AND ?",
+                new String[] { String.valueOf(userId), String.valueOf(from), String.valueOf(todayEpochDay) },
+                null, null, null)) {
+            while (c.moveToNext()) {
+                sums.add(c.getLong(0), c.getLong(1), c.getLong(2), c.getLong(3), c.getLong(4));
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Compute streaks from a cursor whose first column is the date, newest first,
+     * see {@link StreakCounter}
+     * 
+     * @param c     the cursor positioned before the first row
+     * @param today the date the current streak must end on
+     * @return the current and longest streaks and the last logged date
+     */
+    static StreakDTO readStreak(Cursor c, LocalDate today) {
+        StreakCounter counter = new StreakCounter(DateCodec.toEpochDay(today));
+        while (c.moveToNext()) {
+            counter.add(c.getLong(0));
+        }
+        return new StreakDTO(counter.getCurrentStreak(), counter.getLongestStreak(),
+                counter.getLastLoggedEpochDay());
+    }
+
+    /**
+     * Add a new weight entry, on the database executor
+     * 
+     * @see #addWeight
+     */
+    public void addWeightAsync(LifecycleOwner owner, long userId, long epochDay, float weightLb,
+            @Nullable DatabaseExecutor.Callback<Long> callback) {
+        DatabaseExecutor.write(owner, () -> addWeight(userId, epochDay, weightLb), callback);
+    }
+
+    /**
+     * Update an existing weight entry, on the database executor
+     * 
+     * @see #updateWeight
+     */
+    public void updateWeightAsync(LifecycleOwner owner, long id, float newWeightLb,
+            @Nullable DatabaseExecutor.Callback<Integer> callback) {
+        DatabaseExecutor.write(owner, () -> updateWeight(id, newWeightLb), callback);
+    }
+
+    /**
+     * Delete a weight entry, on the database executor
+     * 
+     * @see #deleteWeight
+     */
+    public void deleteWeightAsync(LifecycleOwner owner, long id,
+            @Nullable DatabaseExecutor.Callback<Integer> callback) {
+        DatabaseExecutor.write(owner, () -> deleteWeight(id), callback);
+    }
+
+    /**
+     * Get the weight history for a user, on the database executor
+     * 
+     * @see #getWeightHistory
+     */
+    public void getWeightHistoryAsync(LifecycleOwner owner, long userId,
+            DatabaseExecutor.Callback<List<WeightDTO>> callback) {
+        DatabaseExecutor.read(owner, () -> getWeightHistory(userId), callback);
+    }
+
+    /**
+     * Get the full weight history for a user as a primitive series, on the database executor
+     * 
+     * @see #getWeightSeries
+     */
+    public void getWeightSeriesAsync(LifecycleOwner owner, long userId,
+            DatabaseExecutor.Callback<WeightSeries> callback) {
+        DatabaseExecutor.read(owner, () -> getWeightSeries(userId), callback);
+    }
+
+    /**
+     * Get one page of the weight history for a user, on the database executor
+     * 
+     * @see #getWeightHistoryPage
+     */
+    public void getWeightHistoryPageAsync(LifecycleOwner owner, long userId, long beforeEpochDay,
+            int limit, DatabaseExecutor.Callback<List<WeightDTO>> callback) {
+        DatabaseExecutor.read(owner, () -> getWeightHistoryPage(userId, beforeEpochDay, limit), callback);
+    }
+
+    /**
+     * Get the weight statistics for a user, on the database executor
+     * 
+     * @see #getSummary
+     */
+    public void getSummaryAsync(LifecycleOwner owner, long userId,
+            DatabaseExecutor.Callback<WeightSummaryDTO> callback) {
+        DatabaseExecutor.read(owner, () -> getSummary(userId), callback);
+    }
+
+    /**
+     * Get a user's weekly or monthly rollups over a date range, on the database executor
+     * 
+     * @see #getRollups
+     */
+    public void getRollupsAsync(LifecycleOwner owner, long userId, WeightRollups.Period period,
+            long fromEpochDay, long toEpochDay, DatabaseExecutor.Callback<List<RollupDTO>> callback) {
+        DatabaseExecutor.read(owner, () -> getRollups(userId, period, fromEpochDay, toEpochDay), callback);
+    }
+
+    /**
+     * Get a user's current weight trend, on the database executor
+     * 
+     * @see #getTrend
+     */
+    public void getTrendAsync(LifecycleOwner owner, long userId,
+            DatabaseExecutor.Callback<TrendDTO> callback) {
+        DatabaseExecutor.read(owner, () -> getTrend(userId), callback);
+    }
+
+    /**
+     * Get the latest weight entry for a user, on the database executor
+     * 
+     * @see #getLatestWeight
+     */
+    public void getLatestWeightAsync(LifecycleOwner owner, long userId,
+            DatabaseExecutor.Callback<Float> callback) {
+        DatabaseExecutor.read(owner, () -> getLatestWeight(userId), callback);
+    }
+
+    /**
+     * Get the first weight entry for a user, on the database executor
+     * 
+     * @see #getFirstWeight
+     */
+    public void getFirstWeightAsync(LifecycleOwner owner, long userId,
+            DatabaseExecutor.Callback<Float> callback) {
+        DatabaseExecutor.read(owner, () -> getFirstWeight(userId), callback);
+    }
+
+    /**
+     * Get the average weight for a user, on the database executor
+     * 
+     * @see #getAverageWeight
+     */
+    public void getAverageWeightAsync(LifecycleOwner owner, long userId,
+            DatabaseExecutor.Callback<Double> callback) {
+        DatabaseExecutor.read(owner, () -> getAverageWeight(userId), callback);
+    }
+
+    /**
+     * Check if a weight entry exists for a specific date, on the database executor
+     * 
+     * @see #hasWeightEntry
+     */
+    public void hasWeightEntryAsync(LifecycleOwner owner, long userId, long epochDay,
+            DatabaseExecutor.Callback<Boolean> callback) {
+        DatabaseExecutor.read(owner, () -> hasWeightEntry(userId, epochDay), callback);
+    }
+
+    /**
+     * Get the logging streaks for a user, on the database executor
+     * 
+     * @see #getStreak
+     */
+    public void getStreakAsync(LifecycleOwner owner, long userId, LocalDate today,
+            DatabaseExecutor.Callback<StreakDTO> callback) {
+        DatabaseExecutor.read(owner, () -> getStreak(userId, today), callback);
+    }
 }
@@ -3,6 +3,8 @@ package com.example.kc_weight_tracker.utility;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import com.example.kc_weight_tracker.data.UserDataCache;
+
 /**
  * SessionManager is a class that manages the session of the user.
  * It is a singleton class that is used to manage the session of the user.
@@ -31,8 +33,9 @@ public final class SessionManager {
         return userId(ctx) > 0;
     }
 
-    /// clear the session
+    /// clear the session and the cached user data
     public static void clear(Context ctx) {
         prefs(ctx).edit().clear().apply();
+        UserDataCache.clear();
     }
 }
\ No newline at end of file
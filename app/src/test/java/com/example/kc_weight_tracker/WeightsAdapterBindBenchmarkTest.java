@@ -0,0 +1,147 @@
+package com.example.kc_weight_tracker;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.kc_weight_tracker.repository.WeightsRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Measures heap allocation per row in WeightsAdapter, on the host.
+ * Rows are built a page at a time as they arrive, then bound through the
+ * adapter's real onBindViewHolder into an inflated row, and compared with the
+ * old bind that formatted both labels and made a click lambda on every bind.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WeightsAdapterBindBenchmarkTest {
+    private static final int ROWS = 2_000;
+    private static final int PASSES = 25;
+    private static final long LOAD_TIMEOUT_MS = 5_000;
+
+    private static Object sink;
+
+    private com.sun.management.ThreadMXBean mx;
+    private final List<WeightsRepository.WeightDTO> history = new ArrayList<>(ROWS);
+    private final String[] isoDates = new String[ROWS]; // dates were stored as ISO text before
+
+    @Before
+    public void setUp() {
+        mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(mx.isThreadAllocatedMemorySupported());
+
+        LocalDate day = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < ROWS; i++) {
+            history.add(new WeightsRepository.WeightDTO(i, 1, day.plusDays(ROWS - i).toEpochDay(),
+                    180f + (i % 50) / 10f));
+            isoDates[i] = day.plusDays(ROWS - i).toString();
+        }
+    }
+
+    @Test
+    public void bind_allocatesLessThanFormattingPerBind() throws InterruptedException {
+        Context ctx = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(),
+                R.style.Theme_weight_tracker);
+        WeightsAdapter adapter = loadedAdapter();
+        WeightsAdapter.VH holder = adapter.onCreateViewHolder(new FrameLayout(ctx), 0);
+
+        // Warm up every path so the JIT has settled before measuring
+        for (int i = 0; i < PASSES; i++) {
+            buildPages();
+            bind(adapter, holder);
+            legacyBind(holder);
+        }
+
+        double build = bytesPerRow(this::buildPages);
+        double bind = bytesPerRow(() -> bind(adapter, holder));
+        double legacy = bytesPerRow(() -> legacyBind(holder));
+
+        String costs = String.format("build %.1f B/row, bind %.1f B/row, legacy bind %.1f B/row",
+                build, bind, legacy);
+        assertTrue("binding should allocate less than formatting on every bind: " + costs,
+                bind < legacy / 2);
+        assertTrue("formatting once per row should cost less than the legacy bind: " + costs,
+                build + bind < legacy);
+    }
+
+    /**
+     * An adapter holding the whole history as its first page. Later page
+     * requests are never answered, so binding near the end stays a no-op
+     * instead of loading.
+     */
+    private WeightsAdapter loadedAdapter() throws InterruptedException {
+        boolean[] firstPage = { true };
+        WeightsAdapter adapter = new WeightsAdapter((beforeEpochDay, limit, callback) -> {
+            if (firstPage[0]) {
+                firstPage[0] = false;
+                callback.onResult(history);
+            }
+        }, id -> { });
+        adapter.reload();
+
+        // Rows are formatted and diffed on the adapter's thread, then posted to main
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MS;
+        while (adapter.getItemCount() < ROWS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        assertEquals(ROWS, adapter.getItemCount());
+        return adapter;
+    }
+
+    private double bytesPerRow(Runnable pass) {
+        long thread = Thread.currentThread().getId();
+        long before = mx.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < PASSES; i++) {
+            pass.run();
+        }
+        long after = mx.getThreadAllocatedBytes(thread);
+        return (after - before) / (double) (ROWS * PASSES);
+    }
+
+    /** What the adapter does as each page arrives: format its labels once */
+    private void buildPages() {
+        for (int from = 0; from < ROWS; from += WeightsAdapter.PAGE_SIZE) {
+            sink = WeightsAdapter.Row.of(history.subList(from, Math.min(ROWS, from + WeightsAdapter.PAGE_SIZE)));
+        }
+    }
+
+    /** What binding does now: the adapter's own onBindViewHolder */
+    private static void bind(WeightsAdapter adapter, WeightsAdapter.VH holder) {
+        for (int i = 0; i < ROWS; i++) {
+            adapter.onBindViewHolder(holder, i);
+        }
+    }
+
+    /** What onBindViewHolder did before: format both labels and make a click lambda per bind */
+    private void legacyBind(WeightsAdapter.VH holder) {
+        for (int i = 0; i < ROWS; i++) {
+            WeightsRepository.WeightDTO row = history.get(i);
+            String pretty = isoDates[i];
+            try {
+                pretty = LocalDate.parse(isoDates[i])
+                        .format(DateTimeFormatter.ofPattern("MMM dd, yyyy"));
+            } catch (Exception ignore) {}
+            holder.tvDate.setText(pretty);
+            holder.tvWeight.setText(String.format("%.1f lb", row.weightLb));
+            holder.btnDelete.setOnClickListener(v -> sink = row.id);
+        }
+    }
+}
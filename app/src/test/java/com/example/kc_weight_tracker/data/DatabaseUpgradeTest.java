@@ -0,0 +1,168 @@
+package com.example.kc_weight_tracker.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.kc_weight_tracker.data.DatabaseContract.*;
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades a v2 database to the current version on Robolectric's native
+ * SQLite, checking what the v3 dedupe and the v4 date conversion keep and
+ * that the later steps backfill the derived tables.
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DatabaseUpgradeTest {
+    private Context ctx;
+
+    @Before
+    public void setUp() {
+        ctx = ApplicationProvider.getApplicationContext();
+        DatabaseHelper.closeInstance();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+        ctx.deleteDatabase(DB_NAME);
+    }
+
+    private static long day(int y, int m, int d) {
+        return LocalDate.of(y, m, d).toEpochDay();
+    }
+
+    /** The v2 schema, with TEXT dates and no unique (user_id, date) index */
+    private void createV2Database() {
+        File file = ctx.getDatabasePath(DB_NAME);
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        SQLiteDatabase v2 = SQLiteDatabase.openOrCreateDatabase(file, null);
+        v2.execSQL("CREATE TABLE users (_id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT NOT NULL UNIQUE, " +
+                "password TEXT NOT NULL, height_inches REAL DEFAULT 70.0, created_at INTEGER NOT NULL)");
+        v2.execSQL("CREATE TABLE weights (_id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER NOT NULL, " +
+                "date_iso TEXT NOT NULL, weight_lb REAL NOT NULL, " +
+                "FOREIGN KEY(user_id) REFERENCES users(_id) ON DELETE CASCADE)");
+        v2.execSQL("CREATE TABLE IF NOT EXISTS goals (_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "user_id INTEGER NOT NULL UNIQUE, target_lb REAL NOT NULL, target_date_iso TEXT NOT NULL, " +
+                "created_at INTEGER NOT NULL, FOREIGN KEY(user_id) REFERENCES users(_id) ON DELETE CASCADE)");
+
+        v2.execSQL("INSERT INTO users (_id, username, password, created_at) VALUES (1, 'a', 'pw', 0), (2, 'b', 'pw', 0)");
+        v2.execSQL("INSERT INTO weights (_id, user_id, date_iso, weight_lb) VALUES " +
+                "(1, 1, '2024-01-01', 181.3), " +
+                "(2, 1, '2024-01-02', 180.1), " +
+                "(3, 1, '2024-01-01', 181.0), " + // same day as 1, the later row wins
+                "(4, 1, '2024-01-05', 179.9), " +
+                "(5, 1, 'bad', 1), " +            // unparseable, dropped by the conversion
+                "(6, 2, '2023-12-31', 150.0), " +
+                "(7, 2, '2023-12-31', 151.0)");
+        v2.execSQL("INSERT INTO goals (user_id, target_lb, target_date_iso, created_at) VALUES " +
+                "(1, 170, '2024-06-30', 5), (2, 140, 'soon', 6)");
+        v2.setVersion(2);
+        v2.close();
+    }
+
+    @Test
+    public void upgradeFromV2_keepsOneRowPerDayAndConvertsDates() {
+        createV2Database();
+        SQLiteDatabase db = DatabaseHelper.getInstance(ctx).getWritableDatabase();
+        assertEquals(DB_VERSION, db.getVersion());
+
+        // Surviving rows: the latest of each duplicated day, with epoch-day dates
+        assertEquals(Arrays.asList(
+                        "2|1|" + day(2024, 1, 2) + "|180.1",
+                        "3|1|" + day(2024, 1, 1) + "|181.0",
+                        "4|1|" + day(2024, 1, 5) + "|179.9",
+                        "7|2|" + day(2023, 12, 31) + "|151.0"),
+                rows(db, "SELECT " + Weights.COL_ID + ", " + Weights.COL_USER_ID + ", " + Weights.COL_DATE +
+                        ", " + Weights.COL_WEIGHT_LB + " FROM " + Weights.TABLE + " ORDER BY " + Weights.COL_ID));
+        assertEquals(Arrays.asList("1|170.0|" + day(2024, 6, 30) + "|5"),
+                rows(db, "SELECT " + WeightGoals.COL_USER_ID + ", " + WeightGoals.COL_TARGET_LB + ", " +
+                        WeightGoals.COL_TARGET_DATE + ", " + WeightGoals.COL_CREATED_AT + " FROM " + WeightGoals.TABLE));
+
+        // The unique index now rejects a second entry for a logged day
+        ContentValues dup = new ContentValues();
+        dup.put(Weights.COL_USER_ID, 1);
+        dup.put(Weights.COL_DATE, day(2024, 1, 2));
+        dup.put(Weights.COL_WEIGHT_LB, 175f);
+        assertEquals(-1, db.insert(Weights.TABLE, null, dup));
+        assertEquals(Arrays.asList("1"), rows(db, "SELECT \"unique\" FROM pragma_index_list('" + Weights.TABLE +
+                "') WHERE name='" + Weights.IDX_USER_DATE + "'"));
+    }
+
+    @Test
+    public void upgradeFromV2_backfillsSummaryRollupsAndTrend() {
+        createV2Database();
+        SQLiteDatabase db = DatabaseHelper.getInstance(ctx).getWritableDatabase();
+
+        assertEquals(Arrays.asList(
+                        "1|3|" + day(2024, 1, 1) + "|181.0|" + day(2024, 1, 5) + "|179.9|" + (18100 + 18010 + 17990),
+                        "2|1|" + day(2023, 12, 31) + "|151.0|" + day(2023, 12, 31) + "|151.0|15100"),
+                rows(db, "SELECT " + WeightSummary.COL_USER_ID + ", " + WeightSummary.COL_ENTRY_COUNT + ", " +
+                        WeightSummary.COL_FIRST_DATE + ", " + WeightSummary.COL_FIRST_LB + ", " +
+                        WeightSummary.COL_LATEST_DATE + ", " + WeightSummary.COL_LATEST_LB + ", " +
+                        WeightSummary.COL_SUM_CENTI_LB + " FROM " + WeightSummary.TABLE +
+                        " ORDER BY " + WeightSummary.COL_USER_ID));
+
+        // 2024-01-01 was a Monday, so user 1's entries share a week; user 2's is the week before
+        assertEquals(Arrays.asList(
+                        "1|" + day(2024, 1, 1) + "|3",
+                        "2|" + day(2023, 12, 25) + "|1"),
+                rows(db, "SELECT " + Rollups.COL_USER_ID + ", " + Rollups.COL_PERIOD_START + ", " +
+                        Rollups.COL_ENTRY_COUNT + " FROM " + Rollups.TABLE_WEEKLY +
+                        " ORDER BY " + Rollups.COL_USER_ID));
+        assertEquals(Arrays.asList(
+                        "1|" + day(2024, 1, 1) + "|3|" + (day(2024, 1, 1) + day(2024, 1, 2) + day(2024, 1, 5)),
+                        "2|" + day(2023, 12, 1) + "|1|" + day(2023, 12, 31)),
+                rows(db, "SELECT " + Rollups.COL_USER_ID + ", " + Rollups.COL_PERIOD_START + ", " +
+                        Rollups.COL_ENTRY_COUNT + ", " + Rollups.COL_SUM_DAY + " FROM " + Rollups.TABLE_MONTHLY +
+                        " ORDER BY " + Rollups.COL_USER_ID));
+
+        // One trend row per surviving entry, starting from the first weight
+        assertEquals(Arrays.asList(
+                        "1|" + day(2024, 1, 1) + "|181.0",
+                        "1|" + day(2024, 1, 2),
+                        "1|" + day(2024, 1, 5),
+                        "2|" + day(2023, 12, 31) + "|151.0"),
+                rows(db, "SELECT " + Trends.COL_USER_ID + ", " + Trends.COL_DATE + ", " +
+                        "CASE WHEN " + Trends.COL_DATE + " IN (" + day(2024, 1, 1) + ", " + day(2023, 12, 31) + ")" +
+                        " THEN ROUND(" + Trends.COL_EWMA_LB + ", 1) END" +
+                        " FROM " + Trends.TABLE + " ORDER BY " + Trends.COL_USER_ID + ", " + Trends.COL_DATE));
+    }
+
+    /** Each row's columns joined with '|', NULLs left out */
+    private static List<String> rows(SQLiteDatabase db, String sql) {
+        List<String> rows = new ArrayList<>();
+        try (Cursor c = db.rawQuery(sql, null)) {
+            while (c.moveToNext()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 0; i < c.getColumnCount(); i++) {
+                    if (c.isNull(i))
+                        continue;
+                    if (row.length() > 0)
+                        row.append('|');
+                    row.append(c.getString(i));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+}
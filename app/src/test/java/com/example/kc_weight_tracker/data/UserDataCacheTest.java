@@ -0,0 +1,80 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the per-user read-through cache.
+ */
+public class UserDataCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        UserDataCache.clear();
+    }
+
+    private Float latest(long userId, Float stored) {
+        return UserDataCache.get(userId, UserDataCache.Key.LATEST_WEIGHT, () -> {
+            loads.incrementAndGet();
+            return stored;
+        });
+    }
+
+    @Test
+    public void repeatedReads_comeFromMemory() {
+        assertEquals(180f, latest(1001, 180f), 0f);
+        assertEquals(180f, latest(1001, 999f), 0f);
+        assertEquals(1, loads.get());
+        assertEquals(1, UserDataCache.getHitCount());
+        assertEquals(1, UserDataCache.getMissCount());
+
+        // Missing values are remembered too
+        assertNull(latest(1002, null));
+        assertNull(latest(1002, 170f));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void writes_invalidateOnlyTheirTableAndUser() {
+        latest(1011, 180f);
+        UserDataCache.get(1011, UserDataCache.Key.HEIGHT, () -> 70.0);
+        latest(1012, 150f);
+
+        DataVersionTracker.bump(DataVersionTracker.Table.WEIGHTS, 1011);
+
+        assertEquals(179f, latest(1011, 179f), 0f);
+        assertEquals(70.0, UserDataCache.get(1011, UserDataCache.Key.HEIGHT, () -> 0.0), 0);
+        assertEquals(150f, latest(1012, 0f), 0f);
+    }
+
+    @Test
+    public void loadOverlappingAWrite_isNotServedAfterIt() {
+        Float seen = UserDataCache.get(1021, UserDataCache.Key.LATEST_WEIGHT, () -> {
+            // The write commits while the old value is being read
+            DataVersionTracker.bump(DataVersionTracker.Table.WEIGHTS, 1021);
+            return 180f;
+        });
+        assertEquals(180f, seen, 0f);
+        assertEquals(175f, latest(1021, 175f), 0f);
+    }
+
+    @Test
+    public void leastRecentlyUsedUser_isEvicted() {
+        for (long user = 1031; user < 1031 + UserDataCache.MAX_USERS; user++) {
+            latest(user, 100f);
+        }
+        latest(1031, 0f); // touch the oldest so it survives
+        latest(2000, 100f); // one past the limit
+        loads.set(0);
+
+        latest(1031, 0f);
+        assertEquals(0, loads.get());
+        latest(1032, 0f);
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.kc_weight_tracker.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.kc_weight_tracker.repository.WeightsRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.example.kc_weight_tracker.data.DatabaseContract.Rollups;
+import static org.junit.Assert.*;
+
+/**
+ * Database tests for the rollup SQL, on Robolectric's native SQLite.
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class WeightRollupsDbTest {
+    private Context ctx;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        ctx = ApplicationProvider.getApplicationContext();
+        db = DatabaseHelper.getInstance(ctx).getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+        ctx.deleteDatabase(DatabaseContract.DB_NAME);
+        UserDataCache.clear();
+    }
+
+    @Test
+    public void startSql_matchesPeriodStart() {
+        // Around the epoch, where negative days meet SQL's truncating %, and across a leap February
+        List<Long> days = new ArrayList<>();
+        for (long d = -400; d <= 400; d++) {
+            days.add(d);
+        }
+        for (long d = LocalDate.of(2023, 12, 1).toEpochDay(); d <= LocalDate.of(2024, 3, 31).toEpochDay(); d++) {
+            days.add(d);
+        }
+
+        for (WeightRollups.Period period : WeightRollups.Period.values()) {
+            for (long d : days) {
+                try (Cursor c = db.rawQuery("SELECT " + period.startSql("(" + d + ")"), null)) {
+                    assertTrue(c.moveToFirst());
+                    assertEquals(period + " day " + d, period.start(d), c.getLong(0));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void incrementalRefresh_matchesRebuild() {
+        WeightsRepository weights = new WeightsRepository(ctx);
+        Random random = new Random(12);
+        long first = LocalDate.of(2023, 12, 20).toEpochDay(); // spans a year, a month and a leap day
+        int span = 80;
+
+        long[] users = { createUser("a"), createUser("b") };
+        List<List<Long>> ids = new ArrayList<>();
+        for (int u = 0; u < users.length; u++) {
+            ids.add(new ArrayList<>());
+        }
+
+        for (int step = 0; step < 600; step++) {
+            int u = random.nextInt(users.length);
+            List<Long> live = ids.get(u);
+            int op = random.nextInt(10);
+            if (op < 6 || live.isEmpty()) {
+                long id = weights.addWeight(users[u], first + random.nextInt(span), weight(random));
+                if (id > 0) {
+                    live.add(id);
+                }
+            } else if (op < 8) {
+                weights.updateWeight(live.get(random.nextInt(live.size())), weight(random));
+            } else {
+                assertEquals(1, weights.deleteWeight(live.remove(random.nextInt(live.size()))));
+            }
+
+            if (step % 100 == 99) {
+                assertRefreshMatchesRebuild(users);
+            }
+        }
+        assertRefreshMatchesRebuild(users);
+    }
+
+    @Test
+    public void addRegressionColumns_matchesCreateTablesOrder() {
+        // The v6 tables, before the least-squares sums
+        SQLiteDatabase old = SQLiteDatabase.create(null);
+        for (WeightRollups.Period period : WeightRollups.Period.values()) {
+            old.execSQL("CREATE TABLE " + period.table + " (" +
+                    Rollups.COL_USER_ID + " INTEGER NOT NULL, " +
+                    Rollups.COL_PERIOD_START + " INTEGER NOT NULL, " +
+                    Rollups.COL_ENTRY_COUNT + " INTEGER NOT NULL, " +
+                    Rollups.COL_SUM_CENTI_LB + " INTEGER NOT NULL, " +
+                    Rollups.COL_MIN_LB + " REAL NOT NULL, " +
+                    Rollups.COL_MAX_LB + " REAL NOT NULL, " +
+                    "PRIMARY KEY(" + Rollups.COL_USER_ID + ", " + Rollups.COL_PERIOD_START + ")" +
+                    ") WITHOUT ROWID");
+        }
+        WeightRollups.addRegressionColumns(old);
+
+        // INSERT ... SELECT is positional, so upgraded and new tables must agree on order
+        for (WeightRollups.Period period : WeightRollups.Period.values()) {
+            assertEquals(period.table, columns(db, period.table), columns(old, period.table));
+        }
+        old.close();
+    }
+
+    /** Snapshot the rollups, rebuild them from scratch, and expect the same rows */
+    private void assertRefreshMatchesRebuild(long[] users) {
+        for (WeightRollups.Period period : WeightRollups.Period.values()) {
+            List<String> incremental = rows(period.table);
+            WeightRollups.rebuild(db);
+            assertEquals(period.table, rows(period.table), incremental);
+
+            for (long userId : users) {
+                WeightRollups.rebuildUser(db, userId);
+            }
+            assertEquals(period.table, rows(period.table), incremental);
+        }
+    }
+
+    private List<String> rows(String table) {
+        List<String> rows = new ArrayList<>();
+        try (Cursor c = db.rawQuery("SELECT * FROM " + table +
+                " ORDER BY " + Rollups.COL_USER_ID + ", " + Rollups.COL_PERIOD_START, null)) {
+            while (c.moveToNext()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 0; i < c.getColumnCount(); i++) {
+                    row.append(c.getString(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> columns(SQLiteDatabase db, String table) {
+        List<String> columns = new ArrayList<>();
+        try (Cursor c = db.rawQuery("PRAGMA table_info(" + table + ")", null)) {
+            while (c.moveToNext()) {
+                columns.add(c.getString(c.getColumnIndexOrThrow("name")));
+            }
+        }
+        return columns;
+    }
+
+    private long createUser(String name) {
+        db.execSQL("INSERT INTO " + DatabaseContract.Users.TABLE + " (" +
+                DatabaseContract.Users.COL_USERNAME + ", " + DatabaseContract.Users.COL_PASSWORD + ", " +
+                DatabaseContract.Users.COL_CREATED_AT + ") VALUES (?, 'pw', 0)", new Object[] { name });
+        try (Cursor c = db.rawQuery("SELECT last_insert_rowid()", null)) {
+            assertTrue(c.moveToFirst());
+            return c.getLong(0);
+        }
+    }
+
+    /// a weight with one decimal, as the app logs them
+    private static float weight(Random random) {
+        return (1500 + random.nextInt(500)) / 10f;
+    }
+}
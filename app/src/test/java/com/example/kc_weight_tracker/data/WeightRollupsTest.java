@@ -0,0 +1,46 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the rollup period boundaries.
+ */
+public class WeightRollupsTest {
+
+    private static long day(int y, int m, int d) {
+        return LocalDate.of(y, m, d).toEpochDay();
+    }
+
+    @Test
+    public void week_startsOnMonday() {
+        WeightRollups.Period week = WeightRollups.Period.WEEK;
+        // 2024-03-01 was a Friday
+        assertEquals(day(2024, 2, 26), week.start(day(2024, 3, 1)));
+        assertEquals(day(2024, 2, 26), week.start(day(2024, 2, 26)));
+        assertEquals(day(2024, 2, 26), week.start(day(2024, 3, 3)));
+        assertEquals(day(2024, 3, 3), week.end(day(2024, 2, 26)));
+    }
+
+    @Test
+    public void week_matchesLocalDateAroundTheEpoch() {
+        WeightRollups.Period week = WeightRollups.Period.WEEK;
+        for (long d = -30; d <= 30; d++) {
+            LocalDate monday = LocalDate.ofEpochDay(d).with(DayOfWeek.MONDAY);
+            assertEquals("day " + d, monday.toEpochDay(), week.start(d));
+        }
+    }
+
+    @Test
+    public void month_coversTheCalendarMonth() {
+        WeightRollups.Period month = WeightRollups.Period.MONTH;
+        assertEquals(day(2024, 2, 1), month.start(day(2024, 2, 29)));
+        assertEquals(day(2024, 2, 29), month.end(day(2024, 2, 1)));
+        assertEquals(day(2023, 2, 28), month.end(day(2023, 2, 1)));
+        assertEquals(day(2024, 12, 31), month.end(month.start(day(2024, 12, 15))));
+    }
+}
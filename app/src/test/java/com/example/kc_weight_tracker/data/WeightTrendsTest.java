@@ -0,0 +1,100 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the smoothed trend calculator.
+ */
+public class WeightTrendsTest {
+
+    /** Two years of entries with random gaps, as {day, weight * 10} pairs */
+    private static int[][] history() {
+        Random random = new Random(11);
+        int[][] entries = new int[500][];
+        int day = 19_000;
+        int tenths = 2_000;
+        for (int i = 0; i < entries.length; i++) {
+            day += 1 + (random.nextInt(4) == 0 ? random.nextInt(10) : 0);
+            tenths += random.nextInt(21) - 10;
+            entries[i] = new int[] { day, tenths };
+        }
+        return entries;
+    }
+
+    /** Mean of the entries within windowDays ending on entry i, the slow way */
+    private static double bruteAverage(int[][] entries, int i, int windowDays) {
+        double sum = 0;
+        int n = 0;
+        for (int j = i; j >= 0 && entries[j][0] > entries[i][0] - windowDays; j--) {
+            sum += entries[j][1] / 10.0;
+            n++;
+        }
+        return sum / n;
+    }
+
+    @Test
+    public void averages_matchBruteForce() {
+        int[][] entries = history();
+        WeightTrends.Calculator calc = new WeightTrends.Calculator();
+        for (int i = 0; i < entries.length; i++) {
+            calc.add(entries[i][0], entries[i][1] / 10f);
+            assertEquals(bruteAverage(entries, i, WeightTrends.SHORT_DAYS),
+                    calc.getAverage(WeightTrends.SHORT_DAYS), 1e-9);
+            assertEquals(bruteAverage(entries, i, WeightTrends.LONG_DAYS),
+                    calc.getAverage(WeightTrends.LONG_DAYS), 1e-9);
+        }
+    }
+
+    @Test
+    public void ewma_decaysByDaysElapsed() {
+        WeightTrends.Calculator calc = new WeightTrends.Calculator();
+        calc.add(100, 200f);
+        assertEquals(200, calc.getEwma(), 0);
+
+        // One day moves 10% of the way, three days 1 - 0.9^3 of the way
+        calc.add(101, 190f);
+        assertEquals(199, calc.getEwma(), 1e-9);
+        calc.add(104, 199f);
+        assertEquals(199, calc.getEwma(), 1e-9);
+        calc.add(107, 209f);
+        assertEquals(209 - 10 * Math.pow(0.9, 3), calc.getEwma(), 1e-9);
+    }
+
+    @Test
+    public void resumingFromAStoredRow_matchesAFullRun() {
+        int[][] entries = history();
+        WeightTrends.Calculator full = new WeightTrends.Calculator();
+        double[] ewma = new double[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            full.add(entries[i][0], entries[i][1] / 10f);
+            ewma[i] = full.getEwma();
+        }
+
+        // What recompute does for an edit at entry k: seed from the row before,
+        // prime the window with the month before, then carry on
+        for (int k : new int[] { 1, 37, 250, entries.length - 1 }) {
+            WeightTrends.Calculator resumed = new WeightTrends.Calculator();
+            resumed.seed(entries[k - 1][0], ewma[k - 1]);
+            for (int j = 0; j < k; j++) {
+                if (entries[j][0] > entries[k][0] - WeightTrends.LONG_DAYS) {
+                    resumed.prime(entries[j][0], entries[j][1] / 10f);
+                }
+            }
+            for (int i = k; i < entries.length; i++) {
+                resumed.add(entries[i][0], entries[i][1] / 10f);
+            }
+            assertEquals(full.getEwma(), resumed.getEwma(), 1e-9);
+            assertEquals(full.getAverage(WeightTrends.SHORT_DAYS), resumed.getAverage(WeightTrends.SHORT_DAYS), 0);
+            assertEquals(full.getAverage(WeightTrends.LONG_DAYS), resumed.getAverage(WeightTrends.LONG_DAYS), 0);
+        }
+    }
+
+    @Test
+    public void emptyCalculator_hasNoAverage() {
+        assertTrue(Double.isNaN(new WeightTrends.Calculator().getAverage(WeightTrends.SHORT_DAYS)));
+    }
+}
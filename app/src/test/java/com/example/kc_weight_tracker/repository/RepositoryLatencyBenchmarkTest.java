@@ -0,0 +1,245 @@
+package com.example.kc_weight_tracker.repository;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.kc_weight_tracker.data.DatabaseContract;
+import com.example.kc_weight_tracker.data.DatabaseHelper;
+import com.example.kc_weight_tracker.data.UserDataCache;
+import com.example.kc_weight_tracker.data.WeightRollups;
+import com.example.kc_weight_tracker.data.WeightTrends;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures repository read latency on seeded databases, on the host.
+ * Runs on Robolectric's native SQLite, so queries go through the same SQLite
+ * engine and the same DatabaseHelper schema, indexes and triggers as the app.
+ * Each scenario starts from a fresh database seeded through DatabaseHelper,
+ * then times single calls to random users and reports p50, p95 and p99.
+ * Results are printed and written as JSON to benchmark.resultsDir.
+ * <p>
+ * Opt-in, since the largest database takes a while to seed:
+ * ./gradlew :app:testDebugUnitTest -Pbenchmark.repository --tests '*RepositoryLatencyBenchmarkTest'
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class RepositoryLatencyBenchmarkTest {
+    private static final int WARMUP_CALLS = 200;
+    private static final int SAMPLES = 1_000;
+    private static final long FIRST_DAY = LocalDate.of(2022, 1, 1).toEpochDay();
+
+    private static final Scenario[] SCENARIOS = {
+            new Scenario(1, 1_000),
+            new Scenario(10, 3 * 365),
+            new Scenario(100, 3 * 365),
+            new Scenario(500, 3 * 365),
+    };
+
+    private static Object sink;
+
+    private Context ctx;
+
+    /** A database size: this many users, each with one entry per day for this many days */
+    private static final class Scenario {
+        final int users;
+        final int days;
+
+        Scenario(int users, int days) {
+            this.users = users;
+            this.days = days;
+        }
+
+        String name() {
+            return users + " users x " + days + " days";
+        }
+    }
+
+    /** One repository call against a random user */
+    private interface Call {
+        Object run(int user, Random random);
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue("set -Pbenchmark.repository to run", Boolean.getBoolean("benchmark.repository"));
+        ctx = ApplicationProvider.getApplicationContext();
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+        UserDataCache.clear();
+    }
+
+    @Test
+    public void measureRepositoryLatency() throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"timestampMs\": ").append(System.currentTimeMillis())
+                .append(",\n  \"samples\": ").append(SAMPLES)
+                .append(",\n  \"scenarios\": [");
+
+        for (int s = 0; s < SCENARIOS.length; s++) {
+            Scenario scenario = SCENARIOS[s];
+            long seedStart = System.nanoTime();
+            long[] userIds = seed(scenario);
+            long seedMs = (System.nanoTime() - seedStart) / 1_000_000;
+            System.out.printf("%s: seeded %d rows in %d ms%n",
+                    scenario.name(), (long) scenario.users * scenario.days, seedMs);
+
+            WeightsRepository weights = new WeightsRepository(ctx);
+            UserRepository users = new UserRepository(ctx);
+
+            json.append(s == 0 ? "\n" : ",\n")
+                    .append("    {\"name\": \"").append(scenario.name())
+                    .append("\", \"users\": ").append(scenario.users)
+                    .append(", \"daysPerUser\": ").append(scenario.days)
+                    .append(", \"rows\": ").append((long) scenario.users * scenario.days)
+                    .append(", \"seedMs\": ").append(seedMs)
+                    .append(", \"methods\": [");
+
+            appendMethod(json, true, "getWeightHistory", measure(userIds,
+                    (user, random) -> weights.getWeightHistory(userIds[user])));
+            // Read through UserDataCache, so with few users most calls are hits
+            appendMethod(json, false, "getLatestWeight", measure(userIds,
+                    (user, random) -> weights.getLatestWeight(userIds[user])));
+            // About one lookup in eleven falls after the last entry and misses
+            appendMethod(json, false, "hasWeightEntry", measure(userIds,
+                    (user, random) -> weights.hasWeightEntry(userIds[user],
+                            FIRST_DAY + random.nextInt(scenario.days + scenario.days / 10))));
+            appendMethod(json, false, "authenticate", measure(userIds,
+                    (user, random) -> users.authenticate(username(user), password(user))));
+            json.append("]}");
+
+            DatabaseHelper.closeInstance();
+        }
+        json.append("\n  ]\n}\n");
+
+        File dir = new File(System.getProperty("benchmark.resultsDir", "build/results/repository-benchmark"));
+        assertTrue("cannot create " + dir, dir.isDirectory() || dir.mkdirs());
+        File out = new File(dir, "repository-latency.json");
+        try (Writer writer = Files.newBufferedWriter(out.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+        System.out.println("results written to " + out.getAbsolutePath());
+    }
+
+    /**
+     * Create a fresh database with the scenario's users and daily entries.
+     * Users go through UserRepository. Entries go through one compiled INSERT
+     * in a single transaction, the way a backup restore writes them, so the
+     * summary triggers fire per row and the rollups and trend are rebuilt once
+     * per user.
+     */
+    private long[] seed(Scenario scenario) {
+        DatabaseHelper.closeInstance();
+        ctx.deleteDatabase(DatabaseContract.DB_NAME);
+        UserDataCache.clear();
+
+        UserRepository users = new UserRepository(ctx);
+        long[] userIds = new long[scenario.users];
+        for (int u = 0; u < scenario.users; u++) {
+            userIds[u] = users.createUser(username(u), password(u));
+            assertTrue(userIds[u] > 0);
+        }
+
+        SQLiteDatabase db = DatabaseHelper.getInstance(ctx).getWritableDatabase();
+        Random random = new Random(scenario.users);
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO " + DatabaseContract.Weights.TABLE + " (" +
+                        DatabaseContract.Weights.COL_USER_ID + ", " +
+                        DatabaseContract.Weights.COL_DATE + ", " +
+                        DatabaseContract.Weights.COL_WEIGHT_LB + ") VALUES (?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (long userId : userIds) {
+                float weight = 150 + random.nextInt(80);
+                insert.bindLong(1, userId);
+                for (int d = 0; d < scenario.days; d++) {
+                    weight += (random.nextInt(11) - 5) / 10f;
+                    insert.bindLong(2, FIRST_DAY + d);
+                    insert.bindDouble(3, Math.round(weight * 10) / 10.0);
+                    insert.executeInsert();
+                }
+                WeightRollups.rebuildUser(db, userId);
+                WeightTrends.rebuildUser(db, userId);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+        return userIds;
+    }
+
+    /**
+     * Time single calls to random users, after a warm-up that fills the page
+     * cache and compiles the statements.
+     *
+     * @return the sorted latencies in nanoseconds
+     */
+    private static long[] measure(long[] userIds, Call call) {
+        Random random = new Random(7);
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            sink = call.run(random.nextInt(userIds.length), random);
+        }
+        long[] nanos = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            int user = random.nextInt(userIds.length);
+            long start = System.nanoTime();
+            sink = call.run(user, random);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    /** The nearest-rank percentile of sorted samples */
+    private static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static void appendMethod(StringBuilder json, boolean first, String method, long[] sorted) {
+        long p50 = percentile(sorted, 50);
+        long p95 = percentile(sorted, 95);
+        long p99 = percentile(sorted, 99);
+        System.out.printf("  %-18s p50 %8.1f us  p95 %8.1f us  p99 %8.1f us%n",
+                method, p50 / 1e3, p95 / 1e3, p99 / 1e3);
+        json.append(first ? "\n" : ",\n")
+                .append("      {\"method\": \"").append(method)
+                .append("\", \"p50Ns\": ").append(p50)
+                .append(", \"p95Ns\": ").append(p95)
+                .append(", \"p99Ns\": ").append(p99)
+                .append(", \"maxNs\": ").append(sorted[sorted.length - 1])
+                .append('}');
+    }
+
+    private static String username(int user) {
+        return "bench" + user;
+    }
+
+    private static String password(int user) {
+        return "password" + user;
+    }
+}
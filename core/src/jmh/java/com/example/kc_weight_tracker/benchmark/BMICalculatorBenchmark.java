@@ -0,0 +1,33 @@
+package com.example.kc_weight_tracker.benchmark;
+
+import com.example.kc_weight_tracker.data.WeightSeries;
+import com.example.kc_weight_tracker.utility.BMICalculator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BMICalculatorBenchmark is a class that measures BMI over a whole history,
+ * as a BMI chart or history screen would compute it for each entry.
+ */
+public class BMICalculatorBenchmark {
+
+    @Benchmark
+    public void bmiAndCategory(SyntheticHistory history, Blackhole bh) {
+        WeightSeries series = history.series;
+        for (int i = 0; i < series.size(); i++) {
+            double bmi = BMICalculator.calculateBMI(series.weightLb(i), history.heightInches);
+            bh.consume(bmi);
+            bh.consume(BMICalculator.getBMICategory(bmi));
+        }
+    }
+
+    @Benchmark
+    public void goalValidation(SyntheticHistory history, Blackhole bh) {
+        WeightSeries series = history.series;
+        for (int i = 0; i < series.size(); i++) {
+            bh.consume(BMICalculator.getValidationMessage(series.weightLb(i), history.targetLb,
+                    history.heightInches));
+        }
+    }
+}
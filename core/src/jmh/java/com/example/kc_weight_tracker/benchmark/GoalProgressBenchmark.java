@@ -0,0 +1,30 @@
+package com.example.kc_weight_tracker.benchmark;
+
+import com.example.kc_weight_tracker.data.WeightSeries;
+import com.example.kc_weight_tracker.utility.GoalProgress;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * GoalProgressBenchmark is a class that measures the goal progress formula
+ * over a whole history, as a progress-over-time view would evaluate it.
+ */
+public class GoalProgressBenchmark {
+
+    @Benchmark
+    public void percent(SyntheticHistory history, Blackhole bh) {
+        WeightSeries series = history.series;
+        for (int i = 0; i < series.size(); i++) {
+            bh.consume(GoalProgress.percent(history.startLb, series.weightLb(i), history.targetLb));
+        }
+    }
+
+    @Benchmark
+    public void remaining(SyntheticHistory history, Blackhole bh) {
+        WeightSeries series = history.series;
+        for (int i = 0; i < series.size(); i++) {
+            bh.consume(GoalProgress.remaining(series.weightLb(i), history.targetLb));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.kc_weight_tracker.benchmark;
+
+import com.example.kc_weight_tracker.data.WeightCsv;
+import com.example.kc_weight_tracker.data.WeightSeries;
+import com.example.kc_weight_tracker.utility.WeightFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * HistoryFormatBenchmark is a class that measures formatting a whole history
+ * for display and for export. The allocation rate matters as much as the
+ * throughput here, since these run for every row of the history list.
+ */
+public class HistoryFormatBenchmark {
+
+    /** A date and a weight label per entry, as the history list binds them */
+    @Benchmark
+    public void displayRows(SyntheticHistory history, Blackhole bh) {
+        WeightSeries series = history.series;
+        for (int i = 0; i < series.size(); i++) {
+            bh.consume(WeightFormat.formatDate(series.epochDay(i)));
+            bh.consume(WeightFormat.formatWeightLb(series.weightLb(i)));
+        }
+    }
+
+    /** One record line per entry through a reused builder, as the CSV export writes them */
+    @Benchmark
+    public void exportLines(SyntheticHistory history, Blackhole bh) {
+        WeightSeries series = history.series;
+        StringBuilder line = new StringBuilder(32);
+        long chars = 0;
+        for (int i = 0; i < series.size(); i++) {
+            chars += WeightCsv.appendRecord(line, WeightCsv.TYPE_WEIGHT, series.epochDay(i), series.weightLb(i))
+                    .length();
+        }
+        bh.consume(chars);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.kc_weight_tracker.benchmark;
+
+import com.example.kc_weight_tracker.data.StreakCounter;
+import com.example.kc_weight_tracker.data.WeightSeries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * StreakBenchmark is a class that measures counting the current and longest
+ * streak over a whole history, fed newest first as the repository reads it.
+ */
+public class StreakBenchmark {
+
+    @Benchmark
+    public void countStreaks(SyntheticHistory history, Blackhole bh) {
+        WeightSeries series = history.series;
+        StreakCounter counter = new StreakCounter(SyntheticHistory.TODAY);
+        for (int i = series.size() - 1; i >= 0; i--) {
+            counter.add(series.epochDay(i));
+        }
+        bh.consume(counter.getCurrentStreak());
+        bh.consume(counter.getLongestStreak());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.kc_weight_tracker.benchmark;
+
+import com.example.kc_weight_tracker.data.WeightSeries;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+
+/**
+ * SyntheticHistory is a class that holds a generated weight history shared by
+ * the benchmarks. It spans from a month to twenty years of daily entries, with
+ * an occasional missed day so streaks break the way real ones do, and a weight
+ * that swings around 190 lb over the seasons with day-to-day noise. The seed is fixed, so every run and
+ * every commit measures the same data.
+ */
+@State(Scope.Benchmark)
+public class SyntheticHistory {
+
+    /// days of history: a month, a year, ten years, twenty years
+    @Param({ "30", "365", "3650", "7300" })
+    public int days;
+
+    /// the last day of the history, the "today" streaks are counted to
+    public static final int TODAY = 20_000;
+
+    /// one day in this many is skipped
+    private static final int MISS_ONE_IN = 20;
+
+    /// height used for BMI, in inches
+    public final double heightInches = 68;
+
+    /// goal weight, in pounds
+    public final float targetLb = 170f;
+
+    /// the history, oldest first
+    public WeightSeries series;
+
+    /// the first weight in the history, the goal's starting weight
+    public float startLb;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        WeightSeries.Builder builder = new WeightSeries.Builder(days);
+        for (int day = TODAY - days + 1; day <= TODAY; day++) {
+            double weight = 190 + 15 * Math.sin(day * 2 * Math.PI / 365) + random.nextDouble(-1, 1);
+            // Always log today, so the current streak is never trivially zero
+            if (day != TODAY && random.nextInt(MISS_ONE_IN) == 0) {
+                continue;
+            }
+            float lb = Math.round(weight * 10) / 10f;
+            builder.add(day, lb, day);
+        }
+        series = builder.build();
+        startLb = series.weightLb(0);
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.kc_weight_tracker.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * BackupCodec is a class that encodes one user's data in a compact binary format.
+ * A backup is a header with the profile and goal, then the weight entries
+ * oldest first, then a CRC32 of everything before it:
+ * <pre>
+ * magic "KCWB", version byte
+ * height    varint, tenths of an inch
+ * has goal  byte 0/1, then target varint centi-lb, target day zigzag varint, created at varint ms
+ * count     varint
+ * entries   zigzag varint day delta, zigzag varint centi-lb delta (from the previous entry, or 0)
+ * crc32     4 bytes big-endian
+ * </pre>
+ * Consecutive daily entries cost about three bytes each, against roughly
+ * twenty-four as CSV. Weights are stored in hundredths of a pound, which
+ * round-trips any weight logged to one or two decimals exactly.
+ */
+public final class BackupCodec {
+    private BackupCodec() {
+    }
+
+    private static final byte[] MAGIC = { 'K', 'C', 'W', 'B' };
+    public static final int VERSION = 1;
+
+    /**
+     * Header is a class that represents the profile and goal stored in a backup.
+     */
+    public static final class Header {
+        public final double heightInches;
+        public final boolean hasGoal;
+        public final float goalTargetLb;
+        public final long goalTargetEpochDay;
+        public final long goalCreatedAtEpochMs;
+
+        /**
+         * Constructor for Header
+         *
+         * @param heightInches         the user's height in inches
+         * @param hasGoal              true if the goal fields are set
+         * @param goalTargetLb         the goal weight in pounds
+         * @param goalTargetEpochDay   the goal date
+         * @param goalCreatedAtEpochMs when the goal was set
+         */
+        public Header(double heightInches, boolean hasGoal, float goalTargetLb, long goalTargetEpochDay,
+                long goalCreatedAtEpochMs) {
+            this.heightInches = heightInches;
+            this.hasGoal = hasGoal;
+            this.goalTargetLb = goalTargetLb;
+            this.goalTargetEpochDay = goalTargetEpochDay;
+            this.goalCreatedAtEpochMs = goalCreatedAtEpochMs;
+        }
+    }
+
+    /**
+     * Writer is a class that streams a backup to an output stream.
+     * Call {@link #writeHeader}, then {@link #writeEntry} exactly count times in
+     * ascending date order, then {@link #finish}.
+     */
+    public static final class Writer {
+        private final OutputStream out;
+        private final CRC32 crc = new CRC32();
+        private long remaining = -1;
+        private long prevDay;
+        private long prevCentiLb;
+
+        /**
+         * Constructor for Writer
+         *
+         * @param out the stream to write to, not closed by the writer
+         */
+        public Writer(OutputStream out) {
+            this.out = new BufferedOutputStream(out, 16 * 1024);
+        }
+
+        /**
+         * Write the header and the number of entries that follow
+         *
+         * @param header the profile and goal
+         * @param count  the number of entries
+         * @throws IOException if writing fails
+         */
+        public void writeHeader(Header header, long count) throws IOException {
+            for (byte b : MAGIC) {
+                writeByte(b);
+            }
+            writeByte(VERSION);
+            writeVarint(Math.round(header.heightInches * 10));
+            writeByte(header.hasGoal ? 1 : 0);
+            if (header.hasGoal) {
+                writeVarint(toCentiLb(header.goalTargetLb));
+                writeVarint(zigzag(header.goalTargetEpochDay));
+                writeVarint(header.goalCreatedAtEpochMs);
+            }
+            writeVarint(count);
+            remaining = count;
+        }
+
+        /**
+         * Write the next entry
+         *
+         * @param epochDay the date, after the previous entry's
+         * @param weightLb the weight in pounds
+         * @throws IOException if writing fails
+         */
+        public void writeEntry(long epochDay, float weightLb) throws IOException {
+            if (remaining <= 0)
+                throw new IllegalStateException("more entries than the header declared");
+            long centiLb = toCentiLb(weightLb);
+            writeVarint(zigzag(epochDay - prevDay));
+            writeVarint(zigzag(centiLb - prevCentiLb));
+            prevDay = epochDay;
+            prevCentiLb = centiLb;
+            remaining--;
+        }
+
+        /**
+         * Write the checksum and flush
+         *
+         * @throws IOException if writing fails
+         */
+        public void finish() throws IOException {
+            if (remaining != 0)
+                throw new IllegalStateException(remaining + " declared entries were not written");
+            long value = crc.getValue();
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                out.write((int) (value >>> shift));
+            }
+            out.flush();
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeByte(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+        }
+    }
+
+    /**
+     * Reader is a class that streams a backup from an input stream.
+     * It works like a cursor: {@link #readHeader} first, then {@link #next()}
+     * until it returns false, which also verifies the checksum.
+     */
+    public static final class Reader {
+        private final InputStream in;
+        private final CRC32 crc = new CRC32();
+        private long remaining = -1;
+        private long epochDay;
+        private long centiLb;
+
+        /**
+         * Constructor for Reader
+         *
+         * @param in the stream to read from, not closed by the reader
+         */
+        public Reader(InputStream in) {
+            this.in = new BufferedInputStream(in, 16 * 1024);
+        }
+
+        /**
+         * Read the header
+         *
+         * @return the profile and goal
+         * @throws IOException if the stream is not a backup this version can read, or is corrupt
+         */
+        public Header readHeader() throws IOException {
+            for (byte b : MAGIC) {
+                if (readByte() != b)
+                    throw new IOException("Not a weight tracker backup");
+            }
+            int version = readByte();
+            if (version != VERSION)
+                throw new IOException("Unsupported backup version " + version);
+
+            double height = readVarint() / 10.0;
+            boolean hasGoal = readByte() != 0;
+            float targetLb = 0;
+            long targetDay = 0;
+            long createdAt = 0;
+            if (hasGoal) {
+                targetLb = readVarint() / 100f;
+                targetDay = unzigzag(readVarint());
+                createdAt = readVarint();
+            }
+            long count = readVarint();
+            if (count < 0)
+                throw new IOException("Backup is corrupt, invalid entry count");
+            remaining = count;
+            return new Header(height, hasGoal, targetLb, targetDay, createdAt);
+        }
+
+        /**
+         * Get the number of entries not yet read
+         *
+         * @return the remaining entry count
+         */
+        public long getRemaining() {
+            return remaining;
+        }
+
+        /**
+         * Advance to the next entry
+         *
+         * @return false after the last entry, once the checksum has been verified
+         * @throws IOException if the stream is truncated or corrupt
+         */
+        public boolean next() throws IOException {
+            if (remaining < 0)
+                throw new IllegalStateException("readHeader must be called first");
+            if (remaining == 0) {
+                verifyChecksum();
+                return false;
+            }
+            epochDay += unzigzag(readVarint());
+            centiLb += unzigzag(readVarint());
+            remaining--;
+            return true;
+        }
+
+        /** The current entry's date as days since 1970-01-01 */
+        public long getEpochDay() {
+            return epochDay;
+        }
+
+        /** The current entry's weight in pounds */
+        public float getWeightLb() {
+            return centiLb / 100f;
+        }
+
+        private void verifyChecksum() throws IOException {
+            long expected = crc.getValue();
+            long actual = 0;
+            for (int i = 0; i < 4; i++) {
+                actual = (actual << 8) | readRaw();
+            }
+            if (actual != expected)
+                throw new IOException("Backup is corrupt, checksum mismatch");
+            remaining = -2; // further calls fail fast
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+            throw new IOException("Backup is corrupt, varint too long");
+        }
+
+        private int readByte() throws IOException {
+            int b = readRaw();
+            crc.update(b);
+            return b;
+        }
+
+        private int readRaw() throws IOException {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException("Backup is truncated");
+            return b;
+        }
+    }
+
+    /// a weight in whole hundredths of a pound
+    static long toCentiLb(float weightLb) {
+        return Math.round(weightLb * 100.0);
+    }
+
+    /// map signed to unsigned so small negative deltas stay short
+    static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    static long unzigzag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.kc_weight_tracker.data;
+
+import java.time.LocalDate;
+
+/**
+ * DateCodec is a class that converts between the stored date format and the
+ * date types used by the UI.
+ * Dates are stored as INTEGER epoch days (days since 1970-01-01), so sorting,
+ * range checks and streaks compare integers and nothing is parsed on read.
+ */
+public final class DateCodec {
+    private DateCodec() {
+    }
+
+    /**
+     * Encode a date for storage
+     *
+     * @param date the date
+     * @return days since 1970-01-01
+     */
+    public static long toEpochDay(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    /**
+     * Decode a stored date
+     *
+     * @param epochDay days since 1970-01-01
+     * @return the date
+     */
+    public static LocalDate toLocalDate(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Encode an ISO date for storage
+     *
+     * @param dateIso the date as YYYY-MM-DD
+     * @return days since 1970-01-01
+     * @throws java.time.format.DateTimeParseException if the date cannot be parsed
+     */
+    public static long fromIso(String dateIso) {
+        return LocalDate.parse(dateIso).toEpochDay();
+    }
+
+    /**
+     * Decode a stored date as an ISO string
+     *
+     * @param epochDay days since 1970-01-01
+     * @return the date as YYYY-MM-DD
+     */
+    public static String toIso(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    /**
+     * Append a stored date as YYYY-MM-DD, without building an intermediate String
+     *
+     * @param sb       the builder to append to
+     * @param epochDay days since 1970-01-01
+     * @return the builder
+     */
+    public static StringBuilder appendIso(StringBuilder sb, long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        return sb.append(date.getYear())
+                .append(month < 10 ? "-0" : "-").append(month)
+                .append(day < 10 ? "-0" : "-").append(day);
+    }
+
+    /**
+     * Build an SQL expression that converts a YYYY-MM-DD TEXT column to an epoch day.
+     * julianday() of a date is at noon-based Julian day N.5, so subtracting the
+     * Julian day of 1970-01-01 gives a whole number. Unparseable values yield NULL.
+     *
+     * @param column the TEXT column to convert
+     * @return the SQL expression
+     */
+    public static String sqlIsoToEpochDay(String column) {
+        return "CAST(julianday(" + column + ") - 2440587.5 AS INTEGER)";
+    }
+}
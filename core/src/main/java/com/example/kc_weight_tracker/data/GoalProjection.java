@@ -0,0 +1,148 @@
+package com.example.kc_weight_tracker.data;
+
+import androidx.annotation.Nullable;
+
+/**
+ * GoalProjection is a class that projects when a user will reach their goal.
+ * It fits a least-squares line through recent entries, weight against date,
+ * and extends it to the target weight. The fit needs only the running sums in
+ * {@link Sums}, which the rollup tables keep per period, so projecting reads a
+ * few rollup rows rather than the entries.
+ */
+public final class GoalProjection {
+    /// how far back the fit looks; whole weeks, so the window is read from weekly rollups
+    public static final int WINDOW_DAYS = 28;
+    /// a pace slower than this many days to the target counts as not heading toward it
+    static final int MAX_PROJECTION_DAYS = 3_650;
+
+    /// the fitted rate of change, in pounds per day, negative when losing
+    public final double slopeLbPerDay;
+    /// the fitted line's weight on the projection day
+    public final double fittedLb;
+    /// true if the fitted line is at the target or past it, in the goal's direction
+    public final boolean reached;
+    /// the epoch day the line reaches the target, today if it already has, or null if it is not heading toward it
+    @Nullable
+    public final Long projectedEpochDay;
+    /// the rate needed from here to hit the target on its date, or null if the date has passed or it is reached
+    @Nullable
+    public final Double requiredLbPerDay;
+
+    private GoalProjection(double slopeLbPerDay, double fittedLb, boolean reached,
+            @Nullable Long projectedEpochDay, @Nullable Double requiredLbPerDay) {
+        this.slopeLbPerDay = slopeLbPerDay;
+        this.fittedLb = fittedLb;
+        this.reached = reached;
+        this.projectedEpochDay = projectedEpochDay;
+        this.requiredLbPerDay = requiredLbPerDay;
+    }
+
+    /**
+     * Sums is a class that holds the least-squares sums of a set of entries,
+     * with x the epoch day and y the weight in hundredths of a pound. All sums
+     * are exact integers, so combining periods that were recomputed after an
+     * edit or delete gives exactly the sums of the current entries, and the fit
+     * only rounds at its final division.
+     */
+    public static final class Sums {
+        private long count;
+        private long sumDay;
+        private long sumCentiLb;
+        private long sumDaySq;
+        private long sumDayCentiLb;
+
+        /**
+         * Add an entry
+         *
+         * @param epochDay the date of the entry
+         * @param weightLb the weight
+         * @return this, for chaining
+         */
+        public Sums add(long epochDay, float weightLb) {
+            return add(1, epochDay, toCentiLb(weightLb), epochDay * epochDay, epochDay * toCentiLb(weightLb));
+        }
+
+        /**
+         * Add the sums of a group of entries, e.g. one rollup row
+         *
+         * @param count         the number of entries
+         * @param sumDay        the sum of their epoch days
+         * @param sumCentiLb    the sum of their weights in hundredths of a pound
+         * @param sumDaySq      the sum of their epoch days squared
+         * @param sumDayCentiLb the sum of each epoch day times its weight in hundredths
+         * @return this, for chaining
+         */
+        public Sums add(long count, long sumDay, long sumCentiLb, long sumDaySq, long sumDayCentiLb) {
+            this.count += count;
+            this.sumDay += sumDay;
+            this.sumCentiLb += sumCentiLb;
+            this.sumDaySq += sumDaySq;
+            this.sumDayCentiLb += sumDayCentiLb;
+            return this;
+        }
+
+        /** The number of entries */
+        public long getCount() {
+            return count;
+        }
+
+        private static long toCentiLb(float weightLb) {
+            return Math.round(weightLb * 100.0);
+        }
+    }
+
+    /**
+     * Project a goal from the sums of recent entries.
+     * The goal's direction, losing or gaining, comes from the starting weight,
+     * so a fit that has overshot the target counts as reached rather than as
+     * moving away from it.
+     *
+     * @param sums           the sums of the entries to fit, see {@link #WINDOW_DAYS}
+     * @param startLb        the weight the goal started from
+     * @param targetLb       the goal weight
+     * @param targetEpochDay the goal date
+     * @param todayEpochDay  the day to project from
+     * @return the projection, or null if fewer than two days are logged
+     */
+    @Nullable
+    public static GoalProjection project(Sums sums, float startLb, float targetLb, long targetEpochDay, long todayEpochDay) {
+        long n = sums.count;
+        // n·Σx² - (Σx)² is n² times the variance of the days, zero when they are all the same
+        long dayVariance = n * sums.sumDaySq - sums.sumDay * sums.sumDay;
+        if (n < 2 || dayVariance <= 0)
+            return null;
+
+        long covariance = n * sums.sumDayCentiLb - sums.sumDay * sums.sumCentiLb;
+        double slope = covariance / (double) dayVariance / 100.0;
+        double meanDay = sums.sumDay / (double) n;
+        double fitted = sums.sumCentiLb / (n * 100.0) + slope * (todayEpochDay - meanDay);
+
+        double remaining = targetLb - fitted;
+        // Positive for a gain goal, negative for a loss goal, zero if it started at the target
+        double direction = Math.signum(targetLb - startLb);
+        if (remaining * direction <= 0)
+            return new GoalProjection(slope, fitted, true, todayEpochDay, null);
+
+        Long projected = null;
+        if (Math.signum(slope) == direction) {
+            double days = Math.ceil(remaining / slope);
+            if (days <= MAX_PROJECTION_DAYS) {
+                projected = todayEpochDay + (long) days;
+            }
+        }
+
+        long daysLeft = targetEpochDay - todayEpochDay;
+        Double required = daysLeft > 0 ? remaining / daysLeft : null;
+        return new GoalProjection(slope, fitted, false, projected, required);
+    }
+
+    /**
+     * Check if the projected date is on or before the goal date
+     *
+     * @param targetEpochDay the goal date
+     * @return true if the current pace reaches the goal in time
+     */
+    public boolean isOnTrack(long targetEpochDay) {
+        return projectedEpochDay != null && projectedEpochDay <= targetEpochDay;
+    }
+}
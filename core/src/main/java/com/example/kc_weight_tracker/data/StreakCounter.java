@@ -0,0 +1,72 @@
+package com.example.kc_weight_tracker.data;
+
+import androidx.annotation.Nullable;
+
+/**
+ * StreakCounter is a class that computes logging streaks from a user's dates.
+ * Dates are given newest first, at most one per day, as read from the
+ * (user_id, date) index, so a run continues exactly when the next day is one
+ * less than the previous. It keeps no list, so any history costs one pass.
+ */
+public final class StreakCounter {
+    private final long todayEpochDay;
+    @Nullable
+    private Long lastLogged;
+    private int current;
+    private int longest;
+    private int run;
+    private boolean countingCurrent;
+    private long prevDay;
+
+    /**
+     * Constructor for StreakCounter
+     *
+     * @param todayEpochDay the date the current streak must end on
+     */
+    public StreakCounter(long todayEpochDay) {
+        this.todayEpochDay = todayEpochDay;
+    }
+
+    /**
+     * Count the next date
+     *
+     * @param epochDay a logged date, older than the one before
+     */
+    public void add(long epochDay) {
+        boolean continues = run > 0 && epochDay == prevDay - 1;
+
+        if (lastLogged == null) {
+            lastLogged = epochDay;
+        }
+
+        run = continues ? run + 1 : 1;
+        longest = Math.max(longest, run);
+
+        // The current streak is the run that contains today, counted from today backwards
+        if (epochDay == todayEpochDay) {
+            countingCurrent = true;
+            current = 1;
+        } else if (countingCurrent && continues) {
+            current++;
+        } else {
+            countingCurrent = false;
+        }
+        prevDay = epochDay;
+    }
+
+    /** Consecutive logged days ending today */
+    public int getCurrentStreak() {
+        return current;
+    }
+
+    /** The longest run of consecutive logged days */
+    public int getLongestStreak() {
+        return longest;
+    }
+
+    /** The most recent logged date, or null if none was added */
+    @Nullable
+    public Long getLastLoggedEpochDay() {
+        return lastLogged;
+    }
+}
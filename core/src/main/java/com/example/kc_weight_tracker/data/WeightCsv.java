@@ -0,0 +1,187 @@
+package com.example.kc_weight_tracker.data;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.format.DateTimeParseException;
+
+/**
+ * WeightCsv is a class that defines the CSV format used for export and import.
+ * The file has an optional header line and one record per line:
+ * <pre>
+ * type,date,weight_lb
+ * weight,2024-03-01,180.4
+ * goal,2024-06-01,170.0
+ * </pre>
+ * Dates are YYYY-MM-DD and weights always use '.' as the decimal separator.
+ * Weights are written at full float precision, so an export imports back to
+ * exactly the stored values; one-decimal rounding is for display only.
+ * Two-column "date,weight" lines, as most other apps export, are read as weights.
+ */
+public final class WeightCsv {
+    private WeightCsv() {
+    }
+
+    public static final String HEADER = "type,date,weight_lb";
+    public static final String TYPE_WEIGHT = "weight";
+    public static final String TYPE_GOAL = "goal";
+
+    /**
+     * Fill a builder with one record line, replacing its contents.
+     * The weight is the shortest decimal that parses back to the same float.
+     *
+     * @param line     the builder to fill
+     * @param type     {@link #TYPE_WEIGHT} or {@link #TYPE_GOAL}
+     * @param epochDay the date as days since 1970-01-01
+     * @param weightLb the weight in pounds, as stored
+     * @return the builder, ending in a newline
+     */
+    public static StringBuilder appendRecord(StringBuilder line, String type, long epochDay, float weightLb) {
+        line.setLength(0);
+        line.append(type).append(',');
+        DateCodec.appendIso(line, epochDay).append(',');
+        return line.append(weightLb).append('\n');
+    }
+
+    /**
+     * RecordReader is a class that parses CSV records one line at a time.
+     * It works like a cursor: {@link #next()} advances, and the getters describe
+     * the current record until the next call, so nothing accumulates in memory.
+     * Only the syntax is checked here; weight rules are left to the caller.
+     */
+    public static final class RecordReader implements Closeable {
+        private final BufferedReader in;
+        private int line;
+        private boolean started; // a non-blank line has been seen, so no header can follow
+        private boolean goal;
+        private long epochDay;
+        private float weightLb;
+        @Nullable
+        private String error;
+
+        /**
+         * Constructor for RecordReader
+         *
+         * @param in the CSV text; wrapped in a buffer if it is not one already
+         */
+        public RecordReader(Reader in) {
+            this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        }
+
+        /**
+         * Advance to the next record, skipping blank lines and a header
+         *
+         * @return false at the end of the input
+         * @throws IOException if reading fails
+         */
+        public boolean next() throws IOException {
+            while (true) {
+                String text = in.readLine();
+                if (text == null)
+                    return false;
+                line++;
+                if (line == 1 && text.startsWith("\uFEFF")) {
+                    text = text.substring(1); // byte order mark written by some spreadsheet apps
+                }
+                text = text.trim();
+                if (text.isEmpty())
+                    continue;
+
+                boolean first = !started;
+                started = true;
+                if (first && isHeader(text))
+                    continue;
+
+                parse(text);
+                return true;
+            }
+        }
+
+        /** The 1-based line number of the current record */
+        public int getLine() {
+            return line;
+        }
+
+        /** True if the current record is the goal rather than a weight entry */
+        public boolean isGoal() {
+            return goal;
+        }
+
+        /** The record's date as days since 1970-01-01, valid when there is no error */
+        public long getEpochDay() {
+            return epochDay;
+        }
+
+        /** The record's weight in pounds, valid when there is no error */
+        public float getWeightLb() {
+            return weightLb;
+        }
+
+        /** Why the current line could not be read, or null if it is a valid record */
+        @Nullable
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private void parse(String text) {
+            error = null;
+            goal = false;
+
+            String[] fields = text.split(",", -1);
+            int first = 0;
+            if (fields.length == 3) {
+                String type = unquote(fields[0]);
+                if (TYPE_GOAL.equalsIgnoreCase(type)) {
+                    goal = true;
+                } else if (!TYPE_WEIGHT.equalsIgnoreCase(type)) {
+                    error = "Unknown record type \"" + type + "\"";
+                    return;
+                }
+                first = 1;
+            } else if (fields.length != 2) {
+                error = "Expected date and weight";
+                return;
+            }
+
+            try {
+                epochDay = DateCodec.fromIso(unquote(fields[first]));
+            } catch (DateTimeParseException e) {
+                error = "Invalid date, expected YYYY-MM-DD";
+                return;
+            }
+
+            try {
+                weightLb = Float.parseFloat(unquote(fields[first + 1]));
+            } catch (NumberFormatException e) {
+                error = "Invalid weight";
+                return;
+            }
+            if (Float.isNaN(weightLb) || Float.isInfinite(weightLb)) {
+                error = "Invalid weight";
+            }
+        }
+
+        /// a header is a first line whose date column is not a date, e.g. "date,weight"
+        private static boolean isHeader(String text) {
+            String[] fields = text.split(",", -1);
+            String date = unquote(fields[fields.length == 3 ? 1 : 0]);
+            return date.isEmpty() || !Character.isDigit(date.charAt(0));
+        }
+
+        private static String unquote(String field) {
+            String s = field.trim();
+            if (s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"') {
+                s = s.substring(1, s.length() - 1).trim();
+            }
+            return s;
+        }
+    }
+}
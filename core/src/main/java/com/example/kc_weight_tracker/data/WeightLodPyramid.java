@@ -0,0 +1,152 @@
+package com.example.kc_weight_tracker.data;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * WeightLodPyramid is a class that precomputes min/max buckets of a weight
+ * series at every power-of-two time scale, for drawing a chart at any zoom.
+ * Level 0 has one bucket per day from the first entry to the last; each level
+ * above merges pairs of buckets from the one below, so a bucket at level k
+ * covers 2^k days. A chart picks the level whose buckets are about a pixel
+ * wide and draws each bucket's min and max, so the points drawn stay
+ * proportional to the width in pixels however long the history is.
+ * Days without an entry are NaN buckets.
+ */
+public final class WeightLodPyramid {
+    private final int firstDay;
+    private final int dayCount;
+    private final float[][] mins;
+    private final float[][] maxs;
+
+    private WeightLodPyramid(int firstDay, int dayCount, float[][] mins, float[][] maxs) {
+        this.firstDay = firstDay;
+        this.dayCount = dayCount;
+        this.mins = mins;
+        this.maxs = maxs;
+    }
+
+    /**
+     * Build the pyramid for a series
+     *
+     * @param series the weights, oldest first
+     * @return the pyramid, or null if the series is empty
+     */
+    @Nullable
+    public static WeightLodPyramid build(WeightSeries series) {
+        if (series.isEmpty())
+            return null;
+        int first = series.epochDay(0);
+        int days = series.epochDay(series.size() - 1) - first + 1;
+        int levels = 1;
+        while ((1 << (levels - 1)) < days) {
+            levels++;
+        }
+
+        float[][] mins = new float[levels][];
+        float[][] maxs = new float[levels][];
+        float[] base = new float[days];
+        Arrays.fill(base, Float.NaN);
+        for (int i = 0; i < series.size(); i++) {
+            base[series.epochDay(i) - first] = series.weightLb(i);
+        }
+        mins[0] = base;
+        maxs[0] = base; // one entry per day, so min and max are the same array
+
+        for (int level = 1; level < levels; level++) {
+            float[] lowerMin = mins[level - 1];
+            float[] lowerMax = maxs[level - 1];
+            int count = (lowerMin.length + 1) >> 1;
+            float[] min = new float[count];
+            float[] max = new float[count];
+            for (int b = 0; b < count; b++) {
+                int left = b << 1;
+                int right = left + 1;
+                boolean hasRight = right < lowerMin.length;
+                min[b] = nanMin(lowerMin[left], hasRight ? lowerMin[right] : Float.NaN);
+                max[b] = nanMax(lowerMax[left], hasRight ? lowerMax[right] : Float.NaN);
+            }
+            mins[level] = min;
+            maxs[level] = max;
+        }
+        return new WeightLodPyramid(first, days, mins, maxs);
+    }
+
+    /** The epoch day of the first entry */
+    public int getFirstDay() {
+        return firstDay;
+    }
+
+    /** The epoch day of the last entry */
+    public int getLastDay() {
+        return firstDay + dayCount - 1;
+    }
+
+    /** The number of levels, level 0 being one bucket per day */
+    public int getLevelCount() {
+        return mins.length;
+    }
+
+    /**
+     * Pick the finest level that draws no more than one bucket per pixel
+     *
+     * @param daysPerPixel the visible days divided by the width in pixels
+     * @return the smallest level whose buckets span at least that many days
+     */
+    public int levelFor(double daysPerPixel) {
+        int level = 0;
+        while (level < mins.length - 1 && (1 << level) < daysPerPixel) {
+            level++;
+        }
+        return level;
+    }
+
+    /** The number of buckets at a level */
+    public int bucketCount(int level) {
+        return mins[level].length;
+    }
+
+    /**
+     * Get the bucket containing a day, clamped to the level's buckets
+     *
+     * @param level    the level
+     * @param epochDay the day
+     * @return the bucket index
+     */
+    public int bucketOf(int level, double epochDay) {
+        long b = (long) Math.floor((epochDay - firstDay) / (1 << level));
+        return (int) Math.max(0, Math.min(mins[level].length - 1, b));
+    }
+
+    /** The first epoch day a bucket covers */
+    public int bucketStartDay(int level, int bucket) {
+        return firstDay + (bucket << level);
+    }
+
+    /** The lowest weight in a bucket, NaN if it has no entries */
+    public float min(int level, int bucket) {
+        return mins[level][bucket];
+    }
+
+    /** The highest weight in a bucket, NaN if it has no entries */
+    public float max(int level, int bucket) {
+        return maxs[level][bucket];
+    }
+
+    private static float nanMin(float a, float b) {
+        if (Float.isNaN(a))
+            return b;
+        if (Float.isNaN(b))
+            return a;
+        return Math.min(a, b);
+    }
+
+    private static float nanMax(float a, float b) {
+        if (Float.isNaN(a))
+            return b;
+        if (Float.isNaN(b))
+            return a;
+        return Math.max(a, b);
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.kc_weight_tracker.data;
+
+import java.util.Arrays;
+
+/**
+ * WeightSeries is a class that holds a user's weight history as parallel
+ * primitive arrays, sorted by date ascending.
+ * It stores the epoch day, weight and row id of each entry without an object
+ * per entry, so long histories can be scanned for stats, streaks and charts
+ * cheaply. Slices share the backing arrays and never copy.
+ */
+public final class WeightSeries {
+
+    /// a series with no entries
+    public static final WeightSeries EMPTY = new WeightSeries(new int[0], new float[0], new long[0], 0, 0);
+
+    private final int[] epochDays;
+    private final float[] weightsLb;
+    private final long[] ids;
+    private final int offset;
+    private final int size;
+
+    private WeightSeries(int[] epochDays, float[] weightsLb, long[] ids, int offset, int size) {
+        this.epochDays = epochDays;
+        this.weightsLb = weightsLb;
+        this.ids = ids;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Get the number of entries
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if the series has no entries
+     *
+     * @return true if the series is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the date of an entry
+     *
+     * @param i the index of the entry
+     * @return the date as days since 1970-01-01
+     */
+    public int epochDay(int i) {
+        return epochDays[offset + checkIndex(i)];
+    }
+
+    /**
+     * Get the weight of an entry
+     *
+     * @param i the index of the entry
+     * @return the weight in pounds
+     */
+    public float weightLb(int i) {
+        return weightsLb[offset + checkIndex(i)];
+    }
+
+    /**
+     * Get the row id of an entry
+     *
+     * @param i the index of the entry
+     * @return the id of the weight row
+     */
+    public long id(int i) {
+        return ids[offset + checkIndex(i)];
+    }
+
+    /**
+     * Get a view of entries [from, to), sharing this series' arrays
+     *
+     * @param from the first index, inclusive
+     * @param to   the last index, exclusive
+     * @return the view
+     */
+    public WeightSeries slice(int from, int to) {
+        if (from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("slice [" + from + ", " + to + ") of " + size);
+        return new WeightSeries(epochDays, weightsLb, ids, offset + from, to - from);
+    }
+
+    /**
+     * Get a view of the entries dated within [fromEpochDay, toEpochDay]
+     *
+     * @param fromEpochDay the first day, inclusive
+     * @param toEpochDay   the last day, inclusive
+     * @return the view, empty if no entries fall in the range
+     */
+    public WeightSeries range(int fromEpochDay, int toEpochDay) {
+        if (fromEpochDay > toEpochDay)
+            return slice(0, 0);
+        int from = lowerBound(fromEpochDay);
+        int to = upperBound(toEpochDay);
+        return slice(from, to);
+    }
+
+    /**
+     * Find the index of the entry on a day
+     *
+     * @param epochDay the day to look for
+     * @return the index, or (-(insertion point) - 1) if there is no entry that day
+     */
+    public int indexOfDay(int epochDay) {
+        int i = Arrays.binarySearch(epochDays, offset, offset + size, epochDay);
+        return i >= 0 ? i - offset : i + offset;
+    }
+
+    /**
+     * Get a copy of this series with one more entry, in date order.
+     * Costs one array copy, so a chart can apply a single insert without
+     * reading the whole history again.
+     *
+     * @param epochDay the date as days since 1970-01-01
+     * @param weightLb the weight in pounds
+     * @param id       the id of the weight row
+     * @return the new series; this one is unchanged
+     * @throws IllegalArgumentException if the series already has an entry that day
+     */
+    public WeightSeries withEntry(int epochDay, float weightLb, long id) {
+        int at = indexOfDay(epochDay);
+        if (at >= 0)
+            throw new IllegalArgumentException("an entry already exists on day " + epochDay);
+        at = -at - 1;
+
+        int[] days = new int[size + 1];
+        float[] weights = new float[size + 1];
+        long[] rowIds = new long[size + 1];
+        System.arraycopy(epochDays, offset, days, 0, at);
+        System.arraycopy(weightsLb, offset, weights, 0, at);
+        System.arraycopy(ids, offset, rowIds, 0, at);
+        days[at] = epochDay;
+        weights[at] = weightLb;
+        rowIds[at] = id;
+        System.arraycopy(epochDays, offset + at, days, at + 1, size - at);
+        System.arraycopy(weightsLb, offset + at, weights, at + 1, size - at);
+        System.arraycopy(ids, offset + at, rowIds, at + 1, size - at);
+        return new WeightSeries(days, weights, rowIds, 0, size + 1);
+    }
+
+    /**
+     * Get a copy of this series without the entry for a weight row
+     *
+     * @param id the id of the weight row
+     * @return the new series, or this one if no entry has the id
+     */
+    public WeightSeries withoutId(long id) {
+        int at = -1;
+        for (int i = 0; i < size; i++) {
+            if (ids[offset + i] == id) {
+                at = i;
+                break;
+            }
+        }
+        if (at < 0)
+            return this;
+        if (size == 1)
+            return EMPTY;
+
+        int[] days = new int[size - 1];
+        float[] weights = new float[size - 1];
+        long[] rowIds = new long[size - 1];
+        System.arraycopy(epochDays, offset, days, 0, at);
+        System.arraycopy(weightsLb, offset, weights, 0, at);
+        System.arraycopy(ids, offset, rowIds, 0, at);
+        System.arraycopy(epochDays, offset + at + 1, days, at, size - at - 1);
+        System.arraycopy(weightsLb, offset + at + 1, weights, at, size - at - 1);
+        System.arraycopy(ids, offset + at + 1, rowIds, at, size - at - 1);
+        return new WeightSeries(days, weights, rowIds, 0, size - 1);
+    }
+
+    /**
+     * Get the lowest weight
+     *
+     * @return the lowest weight, or NaN if the series is empty
+     */
+    public float min() {
+        if (size == 0)
+            return Float.NaN;
+        float min = weightsLb[offset];
+        for (int i = offset + 1, end = offset + size; i < end; i++) {
+            min = Math.min(min, weightsLb[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Get the highest weight
+     *
+     * @return the highest weight, or NaN if the series is empty
+     */
+    public float max() {
+        if (size == 0)
+            return Float.NaN;
+        float max = weightsLb[offset];
+        for (int i = offset + 1, end = offset + size; i < end; i++) {
+            max = Math.max(max, weightsLb[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Get the average weight
+     *
+     * @return the mean weight, or NaN if the series is empty
+     */
+    public double mean() {
+        if (size == 0)
+            return Double.NaN;
+        double sum = 0;
+        for (int i = offset, end = offset + size; i < end; i++) {
+            sum += weightsLb[i];
+        }
+        return sum / size;
+    }
+
+    /// first index whose day is >= epochDay
+    private int lowerBound(int epochDay) {
+        int lo = offset;
+        int hi = offset + size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (epochDays[mid] < epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - offset;
+    }
+
+    /// first index whose day is > epochDay
+    private int upperBound(int epochDay) {
+        int lo = offset;
+        int hi = offset + size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (epochDays[mid] <= epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - offset;
+    }
+
+    private int checkIndex(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("index " + i + " of " + size);
+        return i;
+    }
+
+    /**
+     * Builder is a class that fills a WeightSeries one entry at a time,
+     * growing its arrays as needed. Entries must be added in date order.
+     */
+    public static final class Builder {
+        private int[] epochDays;
+        private float[] weightsLb;
+        private long[] ids;
+        private int size;
+
+        /**
+         * Constructor for Builder
+         *
+         * @param capacity the expected number of entries
+         */
+        public Builder(int capacity) {
+            int cap = Math.max(capacity, 8);
+            epochDays = new int[cap];
+            weightsLb = new float[cap];
+            ids = new long[cap];
+        }
+
+        /**
+         * Append an entry
+         *
+         * @param epochDay the date as days since 1970-01-01, after the previous entry
+         * @param weightLb the weight in pounds
+         * @param id       the id of the weight row
+         * @return this builder
+         */
+        public Builder add(int epochDay, float weightLb, long id) {
+            if (size > 0 && epochDay <= epochDays[size - 1])
+                throw new IllegalArgumentException("entries must be added in ascending date order");
+            if (size == epochDays.length) {
+                int cap = size + (size >> 1);
+                epochDays = Arrays.copyOf(epochDays, cap);
+                weightsLb = Arrays.copyOf(weightsLb, cap);
+                ids = Arrays.copyOf(ids, cap);
+            }
+            epochDays[size] = epochDay;
+            weightsLb[size] = weightLb;
+            ids[size] = id;
+            size++;
+            return this;
+        }
+
+        /**
+         * Build the series; the builder must not be used afterwards
+         *
+         * @return the series
+         */
+        public WeightSeries build() {
+            return size == 0 ? EMPTY : new WeightSeries(epochDays, weightsLb, ids, 0, size);
+        }
+    }
+}
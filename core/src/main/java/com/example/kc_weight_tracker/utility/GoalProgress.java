@@ -0,0 +1,62 @@
+package com.example.kc_weight_tracker.utility;
+
+/**
+ * GoalProgress is a class that holds the goal progress formula.
+ * <p>
+ * Progress = (Total Difference - Current Difference) / Total Difference × 100
+ * <p>
+ * Where:
+ * - Total Difference = |Starting Weight - Goal Weight|
+ * - Current Difference = |Current Weight - Goal Weight|
+ * <p>
+ * Examples:
+ * Weight Loss: Start 200lbs, Goal 180lbs, Current 190lbs
+ * Total Diff = |200-180| = 20, Current Diff = |190-180| = 10
+ * Progress = (20-10)/20 × 100 = 50%
+ * <p>
+ * Weight Gain: Start 150lbs, Goal 170lbs, Current 165lbs
+ * Total Diff = |150-170| = 20, Current Diff = |165-170| = 5
+ * Progress = (20-5)/20 × 100 = 75%
+ */
+public final class GoalProgress {
+    private GoalProgress() {
+    }
+
+    /**
+     * Get the total distance between the starting weight and the goal
+     *
+     * @param startLb  the starting weight
+     * @param targetLb the goal weight
+     * @return |starting weight - goal weight|
+     */
+    public static float totalDifference(float startLb, float targetLb) {
+        return Math.abs(startLb - targetLb);
+    }
+
+    /**
+     * Get the remaining distance between the current weight and the goal
+     *
+     * @param currentLb the current weight
+     * @param targetLb  the goal weight
+     * @return |current weight - goal weight|
+     */
+    public static float remaining(float currentLb, float targetLb) {
+        return Math.abs(currentLb - targetLb);
+    }
+
+    /**
+     * Get the goal progress as a percentage
+     *
+     * @param startLb   the starting weight
+     * @param currentLb the current weight
+     * @param targetLb  the goal weight
+     * @return progress clamped to 0-100, 100 if the start already equals the goal
+     */
+    public static float percent(float startLb, float currentLb, float targetLb) {
+        float totalDifference = totalDifference(startLb, targetLb);
+        if (totalDifference <= 0)
+            return 100;
+        float weightDifference = remaining(currentLb, targetLb);
+        return Math.max(0, Math.min(100, ((totalDifference - weightDifference) / totalDifference) * 100));
+    }
+}
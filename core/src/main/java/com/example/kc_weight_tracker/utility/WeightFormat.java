@@ -0,0 +1,74 @@
+package com.example.kc_weight_tracker.utility;
+
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * WeightFormat is a class that formats weight history values for display.
+ * It shares one date formatter and formats weights with integer math instead
+ * of String.format, so labels can be built in bulk off the main thread.
+ */
+public final class WeightFormat {
+    private WeightFormat() {
+    }
+
+    /// shared display formatter, DateTimeFormatter is immutable and thread-safe
+    public static final DateTimeFormatter DISPLAY_DATE = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+
+    /// decimal separator of the default locale, as String.format("%.1f") would use
+    private static final char DECIMAL_SEPARATOR = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    /**
+     * Format a date for display, e.g. 2024-03-07 as "Mar 07, 2024"
+     *
+     * @param epochDay the date as days since 1970-01-01
+     * @return the display date
+     */
+    public static String formatDate(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).format(DISPLAY_DATE);
+    }
+
+    /**
+     * Format a weight with one decimal and a unit, e.g. 180.25 as "180.3 lb"
+     *
+     * @param weightLb the weight in pounds
+     * @return the display weight
+     */
+    public static String formatWeightLb(float weightLb) {
+        return appendWeight(new StringBuilder(12), weightLb).append(" lb").toString();
+    }
+
+    /**
+     * Append a weight rounded half-up to one decimal, without allocating
+     *
+     * @param sb       the builder to append to
+     * @param weightLb the weight in pounds
+     * @return the builder
+     */
+    public static StringBuilder appendWeight(StringBuilder sb, float weightLb) {
+        return appendWeight(sb, weightLb, DECIMAL_SEPARATOR);
+    }
+
+    /**
+     * Append a weight rounded half-up to one decimal with a fixed separator,
+     * e.g. '.' for files that must read the same in every locale
+     *
+     * @param sb        the builder to append to
+     * @param weightLb  the weight in pounds
+     * @param separator the decimal separator
+     * @return the builder
+     */
+    public static StringBuilder appendWeight(StringBuilder sb, float weightLb, char separator) {
+        double value = weightLb;
+        if (value < 0) {
+            sb.append('-');
+            value = -value;
+        }
+        // float * 10 is exact in double, so this rounds the same value String.format does
+        long tenths = Math.round(value * 10.0);
+        return sb.append(tenths / 10)
+                .append(separator)
+                .append(tenths % 10);
+    }
+}
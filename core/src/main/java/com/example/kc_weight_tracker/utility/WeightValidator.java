@@ -0,0 +1,27 @@
+package com.example.kc_weight_tracker.utility;
+
+/**
+ * WeightValidator is a class that holds the rules a logged weight must meet.
+ * Manual entry and CSV import both check weights here so they accept the same values.
+ */
+public final class WeightValidator {
+    private WeightValidator() {
+    }
+
+    /// the lowest and highest weight that can be logged, in pounds
+    public static final float MIN_LB = 50;
+    public static final float MAX_LB = 1000;
+
+    /**
+     * Get validation message for a logged weight
+     *
+     * @param weightLb the weight in pounds
+     * @return validation message or null if valid
+     */
+    public static String getValidationMessage(float weightLb) {
+        if (!(weightLb >= MIN_LB && weightLb <= MAX_LB)) {
+            return "Weight must be between " + (int) MIN_LB + "-" + (int) MAX_LB + " lbs";
+        }
+        return null; // Valid
+    }
+}
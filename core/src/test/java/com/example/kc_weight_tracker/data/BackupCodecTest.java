@@ -0,0 +1,169 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the binary backup format.
+ */
+public class BackupCodecTest {
+
+    private static final BackupCodec.Header HEADER = new BackupCodec.Header(
+            70.5, true, 165.5f, LocalDate.of(2025, 6, 1).toEpochDay(), 1_700_000_000_000L);
+
+    /** Three years of near-daily weigh-ins to one decimal, drifting down */
+    private static final long[] days;
+    private static final float[] weights;
+
+    static {
+        Random random = new Random(42);
+        int n = 1_000;
+        days = new long[n];
+        weights = new float[n];
+        long day = LocalDate.of(2022, 1, 1).toEpochDay();
+        int tenths = 2_100;
+        for (int i = 0; i < n; i++) {
+            day += random.nextInt(10) == 0 ? 2 : 1;
+            tenths += random.nextInt(31) - 16;
+            days[i] = day;
+            weights[i] = tenths / 10f;
+        }
+    }
+
+    private static byte[] encode(BackupCodec.Header header, long[] days, float[] weights) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BackupCodec.Writer writer = new BackupCodec.Writer(out);
+        writer.writeHeader(header, days.length);
+        for (int i = 0; i < days.length; i++) {
+            writer.writeEntry(days[i], weights[i]);
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void roundTrip_keepsHeaderAndEntriesExactly() throws IOException {
+        BackupCodec.Reader reader = new BackupCodec.Reader(new ByteArrayInputStream(encode(HEADER, days, weights)));
+
+        BackupCodec.Header header = reader.readHeader();
+        assertEquals(70.5, header.heightInches, 0);
+        assertTrue(header.hasGoal);
+        assertEquals(165.5f, header.goalTargetLb, 0f);
+        assertEquals(HEADER.goalTargetEpochDay, header.goalTargetEpochDay);
+        assertEquals(HEADER.goalCreatedAtEpochMs, header.goalCreatedAtEpochMs);
+        assertEquals(days.length, reader.getRemaining());
+
+        for (int i = 0; i < days.length; i++) {
+            assertTrue(reader.next());
+            assertEquals(days[i], reader.getEpochDay());
+            assertEquals(weights[i], reader.getWeightLb(), 0f);
+        }
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void roundTrip_emptyHistoryWithoutGoalAndPreEpochDates() throws IOException {
+        BackupCodec.Header none = new BackupCodec.Header(0, false, 0, 0, 0);
+        BackupCodec.Reader reader = new BackupCodec.Reader(
+                new ByteArrayInputStream(encode(none, new long[0], new float[0])));
+        assertFalse(reader.readHeader().hasGoal);
+        assertFalse(reader.next());
+
+        long[] old = { -3_000, -2_999, 20_000 };
+        float[] lbs = { 999.99f, 50f, 180.25f };
+        reader = new BackupCodec.Reader(new ByteArrayInputStream(encode(none, old, lbs)));
+        reader.readHeader();
+        for (int i = 0; i < old.length; i++) {
+            assertTrue(reader.next());
+            assertEquals(old[i], reader.getEpochDay());
+            assertEquals(lbs[i], reader.getWeightLb(), 0f);
+        }
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void size_isSeveralTimesSmallerThanCsv() throws IOException {
+        StringBuilder csv = new StringBuilder(WeightCsv.HEADER).append('\n');
+        StringBuilder line = new StringBuilder(32);
+        for (int i = 0; i < days.length; i++) {
+            csv.append(WeightCsv.appendRecord(line, WeightCsv.TYPE_WEIGHT, days[i], weights[i]));
+        }
+        int csvBytes = csv.toString().getBytes(StandardCharsets.UTF_8).length;
+        int backupBytes = encode(HEADER, days, weights).length;
+
+        // Daily deltas fit in one byte for the date and two for the weight
+        assertTrue("backup " + backupBytes + " bytes", backupBytes <= 3 * days.length + 32);
+        assertTrue("csv " + csvBytes + " vs backup " + backupBytes, backupBytes * 6 < csvBytes);
+    }
+
+    @Test
+    public void rejects_corruptAndTruncatedBackups() throws IOException {
+        byte[] good = encode(HEADER, days, weights);
+
+        byte[] flipped = good.clone();
+        flipped[good.length / 2] ^= 0x01;
+        assertUnreadable(flipped);
+        assertUnreadable(Arrays.copyOf(good, good.length - 1));
+        assertUnreadable("type,date,weight_lb\n".getBytes(StandardCharsets.UTF_8));
+
+        // An entry count past Long.MAX_VALUE, which no writer produces
+        byte[] negativeCount = { 'K', 'C', 'W', 'B', BackupCodec.VERSION, 0, 0,
+                -1, -1, -1, -1, -1, -1, -1, -1, -1, 1 };
+        assertUnreadable(negativeCount);
+    }
+
+    @Test
+    public void rejects_everyTruncationAndBitFlipWithIOException() throws IOException {
+        // Small enough to try every prefix and every single-bit error, header and checksum included
+        byte[] good = encode(HEADER, Arrays.copyOf(days, 20), Arrays.copyOf(weights, 20));
+
+        for (int length = 0; length < good.length; length++) {
+            assertUnreadable(Arrays.copyOf(good, length));
+        }
+        for (int i = 0; i < good.length; i++) {
+            for (int bit = 0; bit < 8; bit++) {
+                byte[] flipped = good.clone();
+                flipped[i] ^= 1 << bit;
+                assertUnreadable(flipped);
+            }
+        }
+    }
+
+    /**
+     * Read a backup the way a restore does and expect it to fail with an
+     * IOException, never a runtime exception, and never to report the end of
+     * the entries, since that is what lets a restore commit
+     */
+    private static void assertUnreadable(byte[] bytes) {
+        BackupCodec.Reader reader = new BackupCodec.Reader(new ByteArrayInputStream(bytes));
+        try {
+            reader.readHeader();
+            while (reader.next()) {
+                // read to the checksum
+            }
+            fail("a damaged backup of " + bytes.length + " bytes was read to the end");
+        } catch (IOException expected) {
+            // rejected
+        } catch (RuntimeException e) {
+            throw new AssertionError("a damaged backup of " + bytes.length + " bytes threw " + e, e);
+        }
+    }
+
+    @Test
+    public void zigzag_roundTripsExtremes() {
+        for (long n : new long[] { 0, 1, -1, 63, -64, Long.MAX_VALUE, Long.MIN_VALUE }) {
+            assertEquals(n, BackupCodec.unzigzag(BackupCodec.zigzag(n)));
+        }
+        assertEquals(1, BackupCodec.zigzag(-1));
+        assertEquals(2, BackupCodec.zigzag(1));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the least-squares goal projection.
+ */
+public class GoalProjectionTest {
+    private static final long TODAY = 20_000;
+
+    /** Daily entries over the last four weeks losing a fixed amount a day, plus noise */
+    private static GoalProjection.Sums losing(double lbPerDay) {
+        GoalProjection.Sums sums = new GoalProjection.Sums();
+        for (int i = 27; i >= 0; i--) {
+            double noise = (i % 3 - 1) * 0.2;
+            sums.add(TODAY - i, (float) (200 + lbPerDay * (27 - i) + noise));
+        }
+        return sums;
+    }
+
+    @Test
+    public void steadyLoss_projectsTheDateTheLineCrossesTheTarget() {
+        GoalProjection p = GoalProjection.project(losing(-0.2), 200f, 190f, TODAY + 60, TODAY);
+        assertNotNull(p);
+        assertEquals(-0.2, p.slopeLbPerDay, 0.01);
+        assertEquals(200 - 0.2 * 27, p.fittedLb, 0.2);
+        // About 194.6 lb today, 4.6 lb to go at 0.2 lb a day
+        assertEquals(TODAY + 23, p.projectedEpochDay, 2);
+        assertTrue(p.isOnTrack(TODAY + 60));
+        assertFalse(p.isOnTrack(TODAY + 10));
+        assertEquals((190 - p.fittedLb) / 60, p.requiredLbPerDay, 1e-9);
+    }
+
+    @Test
+    public void movingAwayOrTooSlow_hasNoProjectedDate() {
+        GoalProjection gaining = GoalProjection.project(losing(0.1), 200f, 190f, TODAY + 60, TODAY);
+        assertNull(gaining.projectedEpochDay);
+        assertFalse(gaining.isOnTrack(TODAY + 60));
+        assertTrue(gaining.requiredLbPerDay < 0);
+
+        GoalProjection flat = GoalProjection.project(losing(-0.0001), 200f, 100f, TODAY + 60, TODAY);
+        assertNull(flat.projectedEpochDay);
+    }
+
+    @Test
+    public void overshotTarget_isReachedToday() {
+        // A loss goal from 200 lb where the fit, about 194.6 lb, is already below 196 lb
+        GoalProjection loss = GoalProjection.project(losing(-0.2), 200f, 196f, TODAY + 60, TODAY);
+        assertTrue(loss.reached);
+        assertEquals(Long.valueOf(TODAY), loss.projectedEpochDay);
+        assertNull(loss.requiredLbPerDay);
+        assertTrue(loss.isOnTrack(TODAY + 60));
+
+        // Still reached while the fit, about 202.7 lb, climbs back toward a 205 lb target from 210 lb
+        GoalProjection rebound = GoalProjection.project(losing(0.1), 210f, 205f, TODAY + 60, TODAY);
+        assertTrue(rebound.reached);
+
+        // A gain goal the fit has passed
+        GoalProjection gain = GoalProjection.project(losing(0.2), 190f, 203f, TODAY + 60, TODAY);
+        assertTrue(gain.reached);
+        assertEquals(Long.valueOf(TODAY), gain.projectedEpochDay);
+
+        GoalProjection ahead = GoalProjection.project(losing(-0.2), 200f, 190f, TODAY + 60, TODAY);
+        assertFalse(ahead.reached);
+    }
+
+    @Test
+    public void pastTargetDate_hasNoRequiredRate() {
+        GoalProjection p = GoalProjection.project(losing(-0.2), 200f, 190f, TODAY, TODAY);
+        assertNull(p.requiredLbPerDay);
+        assertNotNull(p.projectedEpochDay);
+    }
+
+    @Test
+    public void tooFewDays_cannotBeProjected() {
+        assertNull(GoalProjection.project(new GoalProjection.Sums(), 200f, 190f, TODAY + 60, TODAY));
+        assertNull(GoalProjection.project(new GoalProjection.Sums().add(TODAY, 200f), 200f, 190f, TODAY + 60, TODAY));
+    }
+
+    @Test
+    public void periodSums_combineToTheSumsOfTheirEntries() {
+        // Summing per-week groups, as the rollups do, gives the same fit as adding each entry
+        GoalProjection.Sums direct = losing(-0.3);
+        GoalProjection.Sums weekly = new GoalProjection.Sums();
+        for (int week = 0; week < 4; week++) {
+            long n = 0, sumDay = 0, sumCenti = 0, sumDaySq = 0, sumDayCenti = 0;
+            for (int i = 27 - week * 7; i > 20 - week * 7; i--) {
+                long day = TODAY - i;
+                long centi = Math.round((float) (200 - 0.3 * (27 - i) + (i % 3 - 1) * 0.2) * 100.0);
+                n++;
+                sumDay += day;
+                sumCenti += centi;
+                sumDaySq += day * day;
+                sumDayCenti += day * centi;
+            }
+            weekly.add(n, sumDay, sumCenti, sumDaySq, sumDayCenti);
+        }
+
+        GoalProjection a = GoalProjection.project(direct, 200f, 180f, TODAY + 90, TODAY);
+        GoalProjection b = GoalProjection.project(weekly, 200f, 180f, TODAY + 90, TODAY);
+        assertEquals(28, weekly.getCount());
+        assertEquals(a.slopeLbPerDay, b.slopeLbPerDay, 0);
+        assertEquals(a.fittedLb, b.fittedLb, 0);
+        assertEquals(a.projectedEpochDay, b.projectedEpochDay);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the Monte Carlo goal simulation.
+ */
+public class GoalSimulationTest {
+
+    /** Sixty days losing about 0.2 lb a day with a pound of day-to-day noise */
+    private static WeightSeries losingHistory() {
+        Random random = new Random(3);
+        WeightSeries.Builder b = new WeightSeries.Builder(60);
+        for (int i = 0; i < 60; i++) {
+            b.add(19_000 + i, (float) (200 - 0.2 * i + random.nextGaussian()), i);
+        }
+        return b.build();
+    }
+
+    private static final long TODAY = 19_059;
+
+    private static Double run(GoalSimulation sim, ForkJoinPool pool, float targetLb, int days, long seed) {
+        return sim.probability(pool, targetLb, TODAY, TODAY + days, GoalSimulation.DEFAULT_TRAJECTORIES, seed,
+                new AtomicBoolean());
+    }
+
+    @Test
+    public void sameSeed_givesTheSameResultOnAnyNumberOfThreads() {
+        GoalSimulation sim = GoalSimulation.fromSeries(losingHistory());
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            Double expected = run(sim, one, 182f, 30, 42);
+            assertEquals(expected, run(sim, four, 182f, 30, 42));
+            assertEquals(expected, run(sim, four, 182f, 30, 42));
+            assertNotEquals(expected, run(sim, four, 182f, 30, 43));
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    public void probability_followsTheHistoricalPace() {
+        GoalSimulation sim = GoalSimulation.fromSeries(losingHistory());
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        // The line is near 188 today and 182 in 30 days: a target on it is a coin flip
+        double fittedAt30 = sim.fittedLb(TODAY + 30);
+        double onPace = run(sim, pool, (float) fittedAt30, 30, 1);
+        assertTrue(onPace > 0.35 && onPace < 0.65);
+        assertTrue(run(sim, pool, (float) fittedAt30 + 2, 30, 1) > 0.95);
+        assertTrue(run(sim, pool, (float) fittedAt30 - 2, 30, 1) < 0.05);
+        // Gaining against the trend is unlikely, further out the same target is likely
+        assertTrue(run(sim, pool, 195f, 30, 1) < 0.05);
+        assertTrue(run(sim, pool, (float) fittedAt30, 60, 1) > 0.95);
+    }
+
+    @Test
+    public void tooFewEntries_cannotBeSimulated() {
+        assertNull(GoalSimulation.fromSeries(WeightSeries.EMPTY));
+        assertNull(GoalSimulation.fromSeries(new WeightSeries.Builder(2).add(1, 180f, 1).add(2, 179f, 2).build()));
+        // Entries older than the history window do not count
+        assertNull(GoalSimulation.fromSeries(new WeightSeries.Builder(3)
+                .add(1, 180f, 1).add(2, 179f, 2).add(200, 170f, 3).build()));
+    }
+
+    @Test
+    public void cancelled_returnsNull() {
+        GoalSimulation sim = GoalSimulation.fromSeries(losingHistory());
+        AtomicBoolean cancelled = new AtomicBoolean(true);
+        assertNull(sim.probability(ForkJoinPool.commonPool(), 182f, TODAY, TODAY + 30, 10_000, 1, cancelled));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the logging streak counter.
+ */
+public class StreakCounterTest {
+    private static final long TODAY = 20_000;
+
+    private static StreakCounter count(long... newestFirst) {
+        StreakCounter counter = new StreakCounter(TODAY);
+        for (long day : newestFirst) {
+            counter.add(day);
+        }
+        return counter;
+    }
+
+    @Test
+    public void currentStreak_endsToday() {
+        StreakCounter c = count(TODAY, TODAY - 1, TODAY - 2, TODAY - 4, TODAY - 5);
+        assertEquals(3, c.getCurrentStreak());
+        assertEquals(3, c.getLongestStreak());
+        assertEquals(Long.valueOf(TODAY), c.getLastLoggedEpochDay());
+    }
+
+    @Test
+    public void missingToday_hasNoCurrentStreak() {
+        StreakCounter c = count(TODAY - 1, TODAY - 2, TODAY - 10, TODAY - 11, TODAY - 12, TODAY - 13);
+        assertEquals(0, c.getCurrentStreak());
+        assertEquals(4, c.getLongestStreak());
+        assertEquals(Long.valueOf(TODAY - 1), c.getLastLoggedEpochDay());
+    }
+
+    @Test
+    public void noDates_hasNoStreaks() {
+        StreakCounter c = count();
+        assertEquals(0, c.getCurrentStreak());
+        assertEquals(0, c.getLongestStreak());
+        assertNull(c.getLastLoggedEpochDay());
+    }
+}
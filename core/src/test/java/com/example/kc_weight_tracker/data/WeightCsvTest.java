@@ -0,0 +1,94 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for parsing CSV records.
+ */
+public class WeightCsvTest {
+
+    private static WeightCsv.RecordReader reader(String text) {
+        return new WeightCsv.RecordReader(new StringReader(text));
+    }
+
+    @Test
+    public void reads_exportedFormat() throws IOException {
+        WeightCsv.RecordReader r = reader(WeightCsv.HEADER + "\n" +
+                "weight,2024-03-01,180.4\n" +
+                "goal,2024-06-01,170.0\n");
+
+        assertTrue(r.next());
+        assertNull(r.getError());
+        assertFalse(r.isGoal());
+        assertEquals(2, r.getLine());
+        assertEquals(LocalDate.of(2024, 3, 1).toEpochDay(), r.getEpochDay());
+        assertEquals(180.4f, r.getWeightLb(), 0f);
+
+        assertTrue(r.next());
+        assertTrue(r.isGoal());
+        assertEquals(LocalDate.of(2024, 6, 1).toEpochDay(), r.getEpochDay());
+        assertFalse(r.next());
+    }
+
+    @Test
+    public void appendRecord_readsBackTheSameFloat() throws IOException {
+        // Stored weights are not always one decimal, e.g. from a kg conversion or an old import
+        float[] weights = { 180.4f, 170f, 180.25f, 81.64663f, 0.1f + 180f, Math.nextUp(200f) };
+        StringBuilder csv = new StringBuilder();
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < weights.length; i++) {
+            csv.append(WeightCsv.appendRecord(line, WeightCsv.TYPE_WEIGHT, 19_000 + i, weights[i]));
+        }
+        assertEquals("weight,2022-01-08,180.25\n", WeightCsv.appendRecord(line, WeightCsv.TYPE_WEIGHT, 19_000, 180.25f)
+                .toString());
+
+        WeightCsv.RecordReader r = reader(csv.toString());
+        for (int i = 0; i < weights.length; i++) {
+            assertTrue(r.next());
+            assertNull(r.getError());
+            assertEquals(19_000 + i, r.getEpochDay());
+            assertEquals(Float.floatToIntBits(weights[i]), Float.floatToIntBits(r.getWeightLb()));
+        }
+        assertFalse(r.next());
+    }
+
+    @Test
+    public void reads_twoColumnFilesWithQuotesBlankLinesAndBom() throws IOException {
+        WeightCsv.RecordReader r = reader("\uFEFF\"Date\",\"Weight\"\r\n\r\n\"2024-01-02\", \"181.0\"\r\n");
+
+        assertTrue(r.next());
+        assertNull(r.getError());
+        assertEquals(3, r.getLine());
+        assertEquals(LocalDate.of(2024, 1, 2).toEpochDay(), r.getEpochDay());
+        assertEquals(181f, r.getWeightLb(), 0f);
+        assertFalse(r.next());
+    }
+
+    @Test
+    public void reports_badLinesAndKeepsGoing() throws IOException {
+        WeightCsv.RecordReader r = reader("2024-13-01,180\n" +
+                "2024-01-01,heavy\n" +
+                "height,2024-01-01,70\n" +
+                "2024-01-01\n" +
+                "2024-01-02,180\n");
+
+        assertTrue(r.next());
+        assertNotNull(r.getError());
+        assertTrue(r.next());
+        assertEquals("Invalid weight", r.getError());
+        assertTrue(r.next());
+        assertNotNull(r.getError());
+        assertTrue(r.next());
+        assertEquals(4, r.getLine());
+        assertNotNull(r.getError());
+        assertTrue(r.next());
+        assertNull(r.getError());
+        assertFalse(r.next());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the chart's min/max bucket pyramid.
+ */
+public class WeightLodPyramidTest {
+
+    /** Ten years of entries on most days */
+    private static WeightSeries decade() {
+        Random random = new Random(7);
+        WeightSeries.Builder b = new WeightSeries.Builder(3_650);
+        float lb = 200f;
+        for (int day = 18_000; day < 18_000 + 3_650; day++) {
+            lb += (random.nextInt(21) - 10) / 10f;
+            if (random.nextInt(5) != 0) {
+                b.add(day, lb, day);
+            }
+        }
+        return b.build();
+    }
+
+    @Test
+    public void buckets_matchBruteForceMinMaxAtEveryLevel() {
+        WeightSeries s = decade();
+        WeightLodPyramid p = WeightLodPyramid.build(s);
+        assertEquals(s.epochDay(0), p.getFirstDay());
+        assertEquals(s.epochDay(s.size() - 1), p.getLastDay());
+        assertEquals(1, p.bucketCount(p.getLevelCount() - 1));
+
+        for (int level = 0; level < p.getLevelCount(); level++) {
+            for (int b = 0; b < p.bucketCount(level); b++) {
+                int from = p.bucketStartDay(level, b);
+                WeightSeries in = s.range(from, from + (1 << level) - 1);
+                if (in.isEmpty()) {
+                    assertTrue(Float.isNaN(p.min(level, b)));
+                } else {
+                    assertEquals(in.min(), p.min(level, b), 0f);
+                    assertEquals(in.max(), p.max(level, b), 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void levelFor_drawsAtMostOneBucketPerPixel() {
+        WeightLodPyramid p = WeightLodPyramid.build(decade());
+        int width = 1_080;
+        for (double days : new double[] { 7, 90, 365, 3_650 }) {
+            int level = p.levelFor(days / width);
+            int from = p.bucketOf(level, p.getFirstDay());
+            int to = p.bucketOf(level, p.getFirstDay() + days);
+            assertTrue(days + " days drew " + (to - from + 1), to - from + 1 <= width + 1);
+            if (level > 0) {
+                // The next finer level would exceed the width
+                assertTrue((1 << (level - 1)) < days / width);
+            }
+        }
+        assertEquals(0, p.levelFor(7.0 / width));
+    }
+
+    @Test
+    public void build_handlesEmptyAndSingleEntrySeries() {
+        assertNull(WeightLodPyramid.build(WeightSeries.EMPTY));
+
+        WeightLodPyramid one = WeightLodPyramid.build(new WeightSeries.Builder(1).add(100, 180f, 1).build());
+        assertEquals(1, one.getLevelCount());
+        assertEquals(180f, one.min(0, 0), 0f);
+        assertEquals(0, one.bucketOf(0, 50));
+        assertEquals(0, one.bucketOf(0, 500));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.kc_weight_tracker.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for WeightSeries views and stats.
+ */
+public class WeightSeriesTest {
+
+    private static WeightSeries series(int... days) {
+        WeightSeries.Builder b = new WeightSeries.Builder(2);
+        for (int i = 0; i < days.length; i++) {
+            b.add(days[i], 150f + i, 100 + i);
+        }
+        return b.build();
+    }
+
+    @Test
+    public void builder_growsAndKeepsOrder() {
+        WeightSeries s = series(10, 11, 13, 20, 21);
+        assertEquals(5, s.size());
+        assertEquals(13, s.epochDay(2));
+        assertEquals(152f, s.weightLb(2), 0f);
+        assertEquals(102L, s.id(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsOutOfOrderDays() {
+        series(10, 10);
+    }
+
+    @Test
+    public void range_isInclusiveAndZeroCopy() {
+        WeightSeries s = series(10, 11, 13, 20, 21);
+        WeightSeries r = s.range(11, 20);
+        assertEquals(3, r.size());
+        assertEquals(11, r.epochDay(0));
+        assertEquals(20, r.epochDay(2));
+        assertEquals(151f, r.min(), 0f);
+        assertEquals(153f, r.max(), 0f);
+        assertEquals(152.0, r.mean(), 1e-9);
+        assertTrue(s.range(14, 19).isEmpty());
+    }
+
+    @Test
+    public void range_toMaxDayKeepsTheTail() {
+        WeightSeries s = series(10, 11, 13, 20, 21);
+        WeightSeries r = s.range(11, Integer.MAX_VALUE);
+        assertEquals(4, r.size());
+        assertEquals(11, r.epochDay(0));
+        assertEquals(21, r.epochDay(3));
+        assertEquals(5, s.range(Integer.MIN_VALUE, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void indexOfDay_isRelativeToView() {
+        WeightSeries v = series(10, 11, 13, 20, 21).slice(1, 4);
+        assertEquals(1, v.indexOfDay(13));
+        assertEquals(-3, v.indexOfDay(14)); // would insert at 2
+    }
+
+    @Test
+    public void withEntryAndWithoutId_copyAndKeepOrder() {
+        WeightSeries v = series(10, 11, 13, 20, 21).slice(1, 4); // 11, 13, 20
+        WeightSeries added = v.withEntry(15, 180f, 7);
+        assertEquals(4, added.size());
+        assertEquals(15, added.epochDay(2));
+        assertEquals(180f, added.weightLb(2), 0f);
+        assertEquals(7L, added.id(2));
+        assertEquals(20, added.epochDay(3));
+        assertEquals(3, v.size()); // unchanged
+
+        WeightSeries removed = added.withoutId(101); // day 11
+        assertEquals(3, removed.size());
+        assertEquals(13, removed.epochDay(0));
+        assertSame(removed, removed.withoutId(999));
+        assertSame(WeightSeries.EMPTY, series(5).withoutId(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withEntry_rejectsALoggedDay() {
+        series(10, 11).withEntry(11, 180f, 7);
+    }
+
+    @Test
+    public void emptySeries_statsAreNaN() {
+        assertTrue(Float.isNaN(WeightSeries.EMPTY.min()));
+        assertTrue(Double.isNaN(WeightSeries.EMPTY.mean()));
+        assertSame(WeightSeries.EMPTY, new WeightSeries.Builder(0).build());
+    }
+}
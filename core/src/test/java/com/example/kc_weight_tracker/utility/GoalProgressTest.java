@@ -0,0 +1,23 @@
+package com.example.kc_weight_tracker.utility;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the goal progress formula.
+ */
+public class GoalProgressTest {
+
+    @Test
+    public void percent_matchesTheDocumentedExamples() {
+        assertEquals(50f, GoalProgress.percent(200f, 190f, 180f), 1e-4f);
+        assertEquals(75f, GoalProgress.percent(150f, 165f, 170f), 1e-4f);
+    }
+
+    @Test
+    public void percent_isClampedAndCompleteWhenStartIsTheGoal() {
+        assertEquals(0f, GoalProgress.percent(200f, 205f, 180f), 0f);
+        assertEquals(100f, GoalProgress.percent(180f, 185f, 180f), 0f);
+    }
+}